@@ -0,0 +1,88 @@
+package bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import data.SyntheticData;
+import io.restassured.path.json.JsonPath;
+import model.ResponseSchemas;
+import model.Responses;
+import model.contact.ContactResponse;
+import model.contact.ContactStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Reading the first contact id out of a contact list body: JsonPath.from as the tests used to,
+ * binding the whole list once, and the streaming ContactStream reader. parseAndValidate is the
+ * structural check Responses adds to a binding when the body is sampled for schema validation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractionBenchmark {
+    @Param({"10", "1000"})
+    public int contacts;
+
+    private byte[] body;
+    private String bodyText;
+
+    @Setup
+    public void setUp() throws Exception {
+        SyntheticData data = new SyntheticData(42, "bench");
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < contacts; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            //Same shape the service returns: request fields plus _id, owner and __v
+            String contact = Responses.MAPPER.writeValueAsString(data.nextContact());
+            json.append(contact, 0, contact.length() - 1)
+                    .append(",\"_id\":\"").append(String.format("%024x", i))
+                    .append("\",\"owner\":\"6510f3c0a1b2c3d4e5f60718\",\"__v\":0}");
+        }
+        bodyText = json.append(']').toString();
+        body = bodyText.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String jsonPathFrom() {
+        return JsonPath.from(bodyText).getString("[0]._id");
+    }
+
+    @Benchmark
+    public String bindWholeList() {
+        return Responses.readList(body, ContactResponse.class).get(0).getId();
+    }
+
+    @Benchmark
+    public int parseAndValidate() throws Exception {
+        JsonNode tree = Responses.MAPPER.readTree(body);
+        ResponseSchemas.validateList(tree, ContactResponse.class);
+        return tree.size();
+    }
+
+    @Benchmark
+    public String streamFirst() {
+        return ContactStream.first(new ByteArrayInputStream(body)).get().getId();
+    }
+
+    @Benchmark
+    public long streamCountWhere() {
+        return ContactStream.countWhere(new ByteArrayInputStream(body), "country", "USA");
+    }
+}
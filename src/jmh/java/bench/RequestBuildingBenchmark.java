@@ -0,0 +1,92 @@
+package bench;
+
+import auth.TokenProvider;
+import auth.WorkerUsers;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import config.RequestSpecifications;
+import data.SyntheticData;
+import http.AllureHttpFilter;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import model.Responses;
+import model.contact.ContactRequest;
+import model.contact.ContactResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+
+/*
+ * Building the BaseApi specification and sending one PUT contacts/{id} with the body given as
+ * the model object, as bytes from the shared writer, or as bytes serialized once up front.
+ * The send benchmarks need -Dthinking.target=local, which the jmh task sets by default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBuildingBenchmark {
+    private static final ObjectWriter WRITER = Responses.MAPPER.writerFor(ContactRequest.class);
+
+    private String token;
+    private String path;
+    private ContactRequest contact;
+    private byte[] preSerialized;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        RequestSpecifications.install();
+        token = TokenProvider.getInstance().getToken(WorkerUsers.current());
+        contact = new SyntheticData(42, "bench").nextContact();
+        preSerialized = WRITER.writeValueAsBytes(contact);
+
+        Response created = request().body(preSerialized).post("contacts");
+        path = "contacts/" + Responses.as(created, ContactResponse.class).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        WorkerUsers.tearDownAll();
+        RestAssured.requestSpecification = null;
+    }
+
+    @Benchmark
+    public RequestSpecification buildDefaultSpecification() {
+        return RequestSpecifications.defaultSpecification();
+    }
+
+    @Benchmark
+    public int sendModelObject() {
+        return request().body(contact).put(path).getStatusCode();
+    }
+
+    @Benchmark
+    public int sendWriterBytes() throws JsonProcessingException {
+        return request().body(WRITER.writeValueAsBytes(contact)).put(path).getStatusCode();
+    }
+
+    @Benchmark
+    public int sendPreSerializedBytes() {
+        return request().body(preSerialized).put(path).getStatusCode();
+    }
+
+    //Allure has no running test to attach to here
+    private RequestSpecification request() {
+        return given().noFiltersOfType(AllureHttpFilter.class).auth().oauth2(token);
+    }
+}
@@ -0,0 +1,79 @@
+package bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import data.SyntheticData;
+import io.restassured.config.EncoderConfig;
+import io.restassured.config.ObjectMapperConfig;
+import io.restassured.internal.mapping.ObjectMapping;
+import model.BodyTemplate;
+import model.Responses;
+import model.contact.ContactRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost of turning a ContactRequest into a request body: the path REST Assured takes for
+ * body(Object), a shared pre-configured ObjectWriter, the builder plus writer together, and
+ * a pre-rendered BodyTemplate with only the email patched in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    private static final ObjectWriter WRITER = Responses.MAPPER.writerFor(ContactRequest.class);
+
+    private final ObjectMapperConfig mapperConfig = ObjectMapperConfig.objectMapperConfig();
+    private final EncoderConfig encoderConfig = EncoderConfig.encoderConfig();
+    private ContactRequest contact;
+    private BodyTemplate template;
+
+    @Setup
+    public void setUp() {
+        contact = new SyntheticData(42, "bench").nextContact();
+        template = BodyTemplate.of(contact, "email");
+    }
+
+    @Benchmark
+    public byte[] restAssuredDefaultMapper() {
+        return ObjectMapping.serialize(contact, "application/json", "UTF-8", null, mapperConfig, encoderConfig)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] preconfiguredObjectWriter() throws JsonProcessingException {
+        return WRITER.writeValueAsBytes(contact);
+    }
+
+    @Benchmark
+    public byte[] buildAndWrite() throws JsonProcessingException {
+        return WRITER.writeValueAsBytes(ContactRequest.builder()
+                .firstName(contact.getFirstName())
+                .lastName(contact.getLastName())
+                .birthdate(contact.getBirthdate())
+                .email(contact.getEmail())
+                .phone(contact.getPhone())
+                .postalCode(contact.getPostalCode())
+                .country(contact.getCountry())
+                .build());
+    }
+
+    @Benchmark
+    public byte[] templateWithPatchedEmail() {
+        return template.render(contact.getEmail()).bytes();
+    }
+}
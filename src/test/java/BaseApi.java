@@ -1,37 +1,57 @@
-import io.qameta.allure.restassured.AllureRestAssured;
-import io.restassured.RestAssured;
-import io.restassured.builder.RequestSpecBuilder;
+import auth.WorkerUsers;
+import config.RequestSpecifications;
+import http.AllureHttpFilter;
+import http.AsyncLoggingFilter;
+import http.ConditionalGetFilter;
+import http.FailedTestLogging;
+import http.PooledHttpClient;
 import io.restassured.filter.Filter;
-import io.restassured.filter.log.RequestLoggingFilter;
-import io.restassured.filter.log.ResponseLoggingFilter;
-import io.restassured.http.ContentType;
-import io.restassured.specification.RequestSpecification;
+import metrics.LatencyRecorder;
+import metrics.LatencyReport;
+import metrics.NetworkBudgetRule;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.junit.AfterClass;
 import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.runner.RunWith;
+import resilience.ResilienceFilter;
+import runner.ParallelRunner;
+import scenario.FixtureScheduler;
 
-import java.util.ArrayList;
-import java.util.List;
-
+@RunWith(ParallelRunner.class)
 public abstract class BaseApi {
     private static final Logger logger = LogManager.getLogger(ThinkingTest.class);
 
+    @Rule
+    public FailedTestLogging failedTestLogging = new FailedTestLogging();
+
+    @Rule
+    public NetworkBudgetRule networkBudget = new NetworkBudgetRule();
+
     @BeforeClass
     public static void setup(){
         logger.info("Start configuration");
-        RestAssured.requestSpecification = defaultRequestSpecification();
+        installRequestSpecification();
         logger.info("Successfully configuration");
     }
 
-    public static RequestSpecification defaultRequestSpecification(){
-
-        List<Filter> filters = new ArrayList<>();
-        filters.add(new RequestLoggingFilter());
-        filters.add(new ResponseLoggingFilter());
-        filters.add(new AllureRestAssured());
+    protected static void installRequestSpecification(Filter... extraFilters){
+        RequestSpecifications.install(extraFilters);
+    }
 
-        return new RequestSpecBuilder().setBaseUri("https://thinking-tester-contact-list.herokuapp.com")
-                .addFilters(filters)
-                .setContentType(ContentType.JSON).build();
+    @AfterClass
+    public static void tearDown(){
+        logger.info("Deleting worker users");
+        WorkerUsers.tearDownAll();
+        PooledHttpClient.logStats();
+        ConditionalGetFilter.shared().logStats();
+        ResilienceFilter.shared().logStats();
+        FixtureScheduler.shared().logStats();
+        FixtureScheduler.shared().clear();
+        LatencyReport.write(LatencyRecorder.getInstance(), LatencyRecorder.endToEnd());
+        AsyncLoggingFilter.flush(30_000);
+        AllureHttpFilter.flush(30_000);
+        RequestSpecifications.saveCassette();
     }
 }
@@ -0,0 +1,239 @@
+import async.AsyncContactListClient;
+import async.AsyncResponse;
+import auth.TokenProvider;
+import auth.WorkerUsers;
+import client.ContactListClient;
+import config.TestProperties;
+import data.SyntheticData;
+import http.Endpoints;
+import io.qameta.allure.Allure;
+import io.qameta.allure.Description;
+import io.qameta.allure.junit4.DisplayName;
+import io.restassured.response.Response;
+import load.ContactSeeder;
+import load.EndpointStats;
+import load.EndpointStatsFilter;
+import load.IntendedStart;
+import load.LoadRunner;
+import metrics.ResourceSampler;
+import model.BodyTemplate;
+import model.FrozenBody;
+import model.Responses;
+import model.contact.ContactRequest;
+import model.contact.ContactResponse;
+import model.user.LoginResponse;
+import model.user.PostLoginUserRequest;
+import model.user.UserRequest;
+import org.apache.http.HttpStatus;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+
+/*
+ * Replays the ThinkingTest flows at -Dthinking.load.rate scenarios per second for
+ * -Dthinking.load.durationSeconds. Skipped unless -Dthinking.load=true; run with "gradle loadTest".
+ * seedContactsTest and exportSyntheticDataTest run only when their count property is set,
+ * soakTest only when -Dthinking.soak.durationSeconds is; run it with "gradle soakTest".
+ */
+public class ThinkingLoadTest extends BaseApi {
+    private static final Logger logger = LogManager.getLogger(ThinkingLoadTest.class);
+    private static final EndpointStats STATS = new EndpointStats();
+    private static final SyntheticData SEED_DATA = SyntheticData.fromProperties();
+    private static final ThreadLocal<SyntheticData> DATA = ThreadLocal.withInitial(SEED_DATA::split);
+    //Hot path bodies: the user is rendered from a template, the update is serialized once
+    private static final BodyTemplate USER_TEMPLATE = BodyTemplate.of(UserRequest.builder()
+            .firstName("Load")
+            .lastName("User")
+            .email("")
+            .password("")
+            .build(), "email", "password");
+    private static final FrozenBody UPDATE_BODY = ContactRequest.builder()
+            .birthdate("1990-01-01")
+            .phone("74859632")
+            .build()
+            .freeze();
+
+    @BeforeClass
+    public static void installStatsFilter(){
+        installRequestSpecification(new EndpointStatsFilter(STATS));
+    }
+
+    @Test
+    @DisplayName("Contact list flows at target rate")
+    @Description("Drives add user, login, add contact, list, update and delete at a fixed arrival rate and reports throughput and error rate per endpoint")
+    public void contactListFlowsAtTargetRateTest() throws InterruptedException {
+        Assume.assumeTrue(TestProperties.getBoolean("thinking.load", false));
+
+        //-Dthinking.load.client=async drives the same flow through the non-blocking client
+        LoadRunner runner = LoadRunner.fromProperties(STATS);
+        LoadRunner.LoadReport report = "async".equals(TestProperties.getString("thinking.load.client", "blocking"))
+                ? runner.runAsync(this::asyncUserJourney)
+                : runner.run(this::userJourney);
+        logger.info("Load report" + System.lineSeparator() + report.format());
+
+        assertThat(report.failedRatio(), lessThanOrEqualTo(TestProperties.getDouble("thinking.load.maxFailedRatio", 0.01)));
+    }
+
+    @Test
+    @DisplayName("Contact list flows for a soak run")
+    @Description("Replays the flows at -Dthinking.soak.rate for -Dthinking.soak.durationSeconds while sampling heap, GC, threads and open file descriptors, and fails when one of them keeps growing")
+    public void soakTest() throws InterruptedException, IOException {
+        long durationSeconds = TestProperties.getLong("thinking.soak.durationSeconds", 0);
+        Assume.assumeTrue(durationSeconds > 0);
+
+        LoadRunner runner = new LoadRunner(TestProperties.getDouble("thinking.soak.rate", 10), durationSeconds,
+                TestProperties.getInt("thinking.load.maxConcurrency", 256), STATS);
+        Path csv = Paths.get(TestProperties.getString("thinking.soak.out", "build/reports/soak/resources.csv"));
+        ResourceSampler sampler = ResourceSampler.start(TestProperties.getLong("thinking.soak.sampleSeconds", 10) * 1000, csv);
+        LoadRunner.LoadReport report;
+        try {
+            report = runner.run(this::userJourney);
+        } finally {
+            sampler.close();
+        }
+        List<ResourceSampler.Sample> samples = sampler.samples();
+        ResourceSampler.Sample first = samples.get(0);
+        ResourceSampler.Sample last = samples.get(samples.size() - 1);
+        logger.info("Soak report" + System.lineSeparator() + report.format()
+                + "GC: " + (last.gcCount() - first.gcCount()) + " collections, " + (last.gcMillis() - first.gcMillis()) + " ms"
+                + System.lineSeparator() + "Resource samples written to " + csv.toAbsolutePath());
+        Allure.addAttachment("Resource samples", "text/csv", Files.newInputStream(csv), ".csv");
+
+        List<String> growing = sampler.growing(TestProperties.getInt("thinking.soak.windows", 4),
+                TestProperties.getDouble("thinking.soak.maxGrowth", 0.2),
+                TestProperties.getLong("thinking.soak.warmupSeconds", Math.min(300, durationSeconds / 5)));
+        assertThat("Resources growing through the run", growing, empty());
+        assertThat(report.failedRatio(), lessThanOrEqualTo(TestProperties.getDouble("thinking.load.maxFailedRatio", 0.01)));
+    }
+
+    @Test
+    @DisplayName("Seed a large contact list")
+    @Description("Creates -Dthinking.seed.count contacts in one account through a bounded window of concurrent requests")
+    public void seedContactsTest() throws InterruptedException {
+        long count = TestProperties.getLong("thinking.seed.count", 0);
+        Assume.assumeTrue(count > 0);
+
+        //Seeds a kept account when one is given, otherwise a worker user that is deleted after the run
+        String email = TestProperties.getString("thinking.seed.email", null);
+        PostLoginUserRequest account = email == null ? WorkerUsers.current() : PostLoginUserRequest.builder()
+                .email(email)
+                .password(TestProperties.getString("thinking.seed.password", "myPassword"))
+                .build();
+        String token = TokenProvider.getInstance().getToken(account);
+
+        ContactSeeder.SeedReport report = ContactSeeder.fromProperties()
+                .seed(token, count, SyntheticData.fromProperties()::nextContact);
+
+        assertThat(report.failed(), equalTo(0L));
+    }
+
+    @Test
+    @DisplayName("Export synthetic data")
+    @Description("Writes -Dthinking.data.exportCount generated users and contacts as JSON lines for later runs")
+    public void exportSyntheticDataTest() {
+        long count = TestProperties.getLong("thinking.data.exportCount", 0);
+        Assume.assumeTrue(count > 0);
+
+        Path directory = Paths.get(TestProperties.getString("thinking.data.exportDir", "build/data"));
+        SyntheticData data = SyntheticData.fromProperties();
+        long users = SyntheticData.writeJsonLines(data.users(count), directory.resolve("users.jsonl"));
+        long contacts = SyntheticData.writeJsonLines(data.contacts(count), directory.resolve("contacts.jsonl"));
+        logger.info("Exported " + users + " users and " + contacts + " contacts to " + directory.toAbsolutePath());
+
+        assertThat(contacts, equalTo(count));
+    }
+
+    private void userJourney(){
+        ContactListClient client = ContactListClient.defaultClient();
+        UserRequest userRequest = DATA.get().nextUser();
+        FrozenBody userBody = USER_TEMPLATE.render(userRequest.getEmail(), userRequest.getPassword());
+        Response responseUser = client.addUser(userBody);
+        assertThat(responseUser.getStatusCode(), equalTo(HttpStatus.SC_CREATED));
+
+        //A failed scenario must not leave its account behind over a long run, whichever step failed
+        String token = null;
+        try {
+            PostLoginUserRequest loginUserRequest = PostLoginUserRequest.builder()
+                    .email(userRequest.getEmail())
+                    .password(userRequest.getPassword())
+                    .build();
+            Response responseLoginUser = client.login(loginUserRequest);
+            assertThat(responseLoginUser.getStatusCode(), equalTo(HttpStatus.SC_OK));
+            token = Responses.as(responseLoginUser, LoginResponse.class).getToken();
+            assertThat(token, notNullValue());
+
+            ContactRequest contactRequest = DATA.get().nextContact();
+            Response contact = client.addContact(token, contactRequest);
+            assertThat(contact.getStatusCode(), equalTo(HttpStatus.SC_CREATED));
+            String idContact = Responses.as(contact, ContactResponse.class).getId();
+
+            assertThat(client.listContacts(token).getStatusCode(), equalTo(HttpStatus.SC_OK));
+
+            assertThat(client.updateContact(token, idContact, UPDATE_BODY).getStatusCode(), equalTo(HttpStatus.SC_OK));
+            assertThat(client.deleteContact(token, idContact).getStatusCode(), equalTo(HttpStatus.SC_OK));
+        } finally {
+            if (token != null) {
+                client.deleteUser(token);
+            }
+        }
+    }
+
+    //Contact list and update do not depend on each other, so they are sent together
+    private CompletableFuture<Void> asyncUserJourney(IntendedStart start){
+        AsyncContactListClient client = AsyncContactListClient.shared().withListener((method, uri, status, elapsedNanos, failure) ->
+                STATS.record(Endpoints.key(method, uri), failure != null || status >= 400, elapsedNanos, start.corrected(elapsedNanos)));
+        UserRequest userRequest = DATA.get().nextUser();
+        ContactRequest contactRequest = DATA.get().nextContact();
+        PostLoginUserRequest loginUserRequest = PostLoginUserRequest.builder()
+                .email(userRequest.getEmail())
+                .password(userRequest.getPassword())
+                .build();
+
+        return client.addUser(USER_TEMPLATE.render(userRequest.getEmail(), userRequest.getPassword()))
+                .thenApply(response -> expectStatus(response, HttpStatus.SC_CREATED))
+                .thenCompose(created -> client.login(loginUserRequest))
+                .thenApply(response -> expectStatus(response, HttpStatus.SC_OK).as(LoginResponse.class).getToken())
+                .thenCompose(token -> client.addContact(token, contactRequest)
+                        .thenApply(response -> expectStatus(response, HttpStatus.SC_CREATED).as(ContactResponse.class).getId())
+                        .thenCompose(idContact -> CompletableFuture.allOf(
+                                        client.listContacts(token).thenApply(response -> expectStatus(response, HttpStatus.SC_OK)),
+                                        client.updateContact(token, idContact, UPDATE_BODY).thenApply(response -> expectStatus(response, HttpStatus.SC_OK)))
+                                .thenCompose(done -> client.deleteContact(token, idContact))
+                                .thenApply(response -> expectStatus(response, HttpStatus.SC_OK)))
+                        //The user is deleted whether or not the contact steps failed, then their failure is passed on
+                        .handle((deleted, failure) -> client.deleteUser(token)
+                                .thenApply(response -> failIfFailed(failure, response)))
+                        .thenCompose(deleteUser -> deleteUser))
+                .thenAccept(response -> expectStatus(response, HttpStatus.SC_OK));
+    }
+
+    private static AsyncResponse failIfFailed(Throwable failure, AsyncResponse response){
+        if (failure == null) {
+            return response;
+        }
+        throw failure instanceof CompletionException ? (CompletionException) failure : new CompletionException(failure);
+    }
+
+    private static AsyncResponse expectStatus(AsyncResponse response, int status){
+        if (response.getStatusCode() != status) {
+            throw new IllegalStateException("Expected " + status + " but was " + response.getStatusCode());
+        }
+        return response;
+    }
+}
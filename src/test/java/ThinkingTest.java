@@ -1,22 +1,59 @@
+import async.AsyncContactListClient;
+import async.AsyncResponse;
+import auth.TokenProvider;
+import auth.WorkerUsers;
+import client.ContactIndex;
+import client.ContactListClient;
+import client.RetryPolicy;
+import config.ServiceTarget;
+import fake.FakeContactListServer;
+import http.CassetteFilter;
+import http.ConditionalGetFilter;
 import io.qameta.allure.*;
 import io.qameta.allure.junit4.*;
-import io.restassured.http.ContentType;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
 import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import metrics.NetworkBudget;
+import model.Responses;
 import model.contact.ContactRequest;
+import model.contact.ContactResponse;
+import model.contact.ContactStream;
+import model.error.ErrorResponse;
+import model.user.LoginResponse;
 import model.user.UserRequest;
 import model.user.PostLoginUserRequest;
+import model.user.UserResponse;
 import org.apache.http.HttpStatus;
+import org.junit.Assume;
 import org.junit.Test;
+import resilience.CircuitBreaker;
+import resilience.CircuitOpenException;
+import resilience.ResilienceFilter;
+import resilience.TokenBucket;
+import scenario.Fixture;
+import scenario.FixtureScheduler;
+import scenario.Scenario;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
-import java.util.List;
-import java.util.Map;
-
-import static io.restassured.RestAssured.given;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static io.restassured.path.json.JsonPath.from;
 import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
 
 public class ThinkingTest extends BaseApi {
+    //Kept current by every contact write the tests make through client
+    private static final ContactIndex contacts = new ContactIndex(ContactListClient.defaultClient());
+    private static final ContactListClient client = ContactListClient.defaultClient().toBuilder()
+            .responseListener(contacts)
+            .build();
+
     /*POST Add User*/
     @Test
     @Severity(SeverityLevel.CRITICAL)
@@ -26,18 +63,17 @@ public class ThinkingTest extends BaseApi {
         UserRequest userRequest = UserRequest.builder()
                 .firstName("Luis32")
                 .lastName("VIlla32")
-                .email("luis32@gmail.com")
+                .email(WorkerUsers.uniqueEmail("luis32"))
                 .password("myPassword")
                 .build();
 
-        Response responseUser = genericMethodPostAddUser(userRequest, "users");
+        Response responseUser = client.addUser(userRequest);
+        WorkerUsers.deleteLater(userRequest);
 
         int statusCode = responseUser.getStatusCode();
-        String body = responseUser.getBody().asString();
-
         assertThat(statusCode, equalTo(HttpStatus.SC_CREATED));
 
-        String token = from(body).get("token");
+        String token = Responses.as(responseUser, LoginResponse.class).getToken();
         assertThat(token, notNullValue());
     }
 
@@ -54,14 +90,12 @@ public class ThinkingTest extends BaseApi {
                 .password("")
                 .build();
 
-        Response responseUser = genericMethodPostAddUser(userRequest, "users");
+        Response responseUser = client.addUser(userRequest);
 
         int statusCode = responseUser.getStatusCode();
-        String body = responseUser.getBody().asString();
-
         assertThat(statusCode, equalTo(HttpStatus.SC_BAD_REQUEST));
 
-        String message = from(body).get("message");
+        String message = Responses.as(responseUser, ErrorResponse.class).getMessage();
         assertThat(message, notNullValue());
         assertThat(message, equalTo("User validation failed: firstName: Path `firstName` is required., lastName: Path `lastName` is required., email: Email is invalid, password: Path `password` is required."));
     }
@@ -75,17 +109,17 @@ public class ThinkingTest extends BaseApi {
         UserRequest userRequest = UserRequest.builder()
                 .firstName("Luis34")
                 .lastName("Villa34")
-                .email("Luis34@gmail.com")
+                .email(WorkerUsers.uniqueEmail("Luis34"))
                 .password("myPassword")
                 .build();
 
-        Response responseUser = genericMethodPostAddUser(userRequest, "users");
+        Response responseUser = client.addUser(userRequest);
+        WorkerUsers.deleteLater(userRequest);
 
         int statusCode = responseUser.getStatusCode();
-        String body = responseUser.getBody().asString();
         assertThat(statusCode, equalTo(HttpStatus.SC_CREATED));
 
-        String userFirstName = from(body).get("user.firstName");
+        String userFirstName = Responses.as(responseUser, LoginResponse.class).getUser().getFirstName();
         assertThat(userFirstName, equalTo("Luis34"));
     }
 
@@ -96,18 +130,14 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that user receives a status code 200  when request login with valid Credentials")
     @Story("Login User")
     public void loginUserWithValidCredentialsTest(){
-        PostLoginUserRequest loginUserRequest = PostLoginUserRequest.builder()
-                .email("Luis34@gmail.com")
-                .password("myPassword")
-                .build();
+        PostLoginUserRequest loginUserRequest = WorkerUsers.current();
 
         System.out.println(loginUserRequest);
 
-        Response responseLoginUser = genericPostLoginUserRequest(loginUserRequest, "users/login");
+        Response responseLoginUser = client.login(loginUserRequest);
 
         int statusCode = responseLoginUser.getStatusCode();
-        String body = responseLoginUser.getBody().asString();
-        String token = from(body).get("token");
+        String token = Responses.as(responseLoginUser, LoginResponse.class).getToken();
 
         assertThat(statusCode, equalTo(HttpStatus.SC_OK));
         assertThat(token, notNullValue());
@@ -124,7 +154,7 @@ public class ThinkingTest extends BaseApi {
                 .password("myPassword")
                 .build();
 
-        Response responseLoginUser = genericPostLoginUserRequest(loginUserRequest, "users/login");
+        Response responseLoginUser = client.login(loginUserRequest);
 
         int statusCode = responseLoginUser.getStatusCode();
         assertThat(statusCode, equalTo(HttpStatus.SC_UNAUTHORIZED));
@@ -136,19 +166,15 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that Json response contains the same email  that the user entered.")
     @Story("Login User")
     public void verifyEmailWithValidCredentialsTest(){
-        PostLoginUserRequest loginUserRequest = PostLoginUserRequest.builder()
-                .email("Luis34@gmail.com")
-                .password("myPassword")
-                .build();
+        PostLoginUserRequest loginUserRequest = WorkerUsers.current();
 
-        Response responseLoginUser = genericPostLoginUserRequest(loginUserRequest, "users/login");
+        Response responseLoginUser = client.login(loginUserRequest);
 
         int statusCode = responseLoginUser.getStatusCode();
-        String body = responseLoginUser.getBody().asString();
-        String userEmail = from(body).getString("user.email");
+        String userEmail = Responses.as(responseLoginUser, LoginResponse.class).getUser().getEmail();
 
         assertThat(statusCode, equalTo(HttpStatus.SC_OK));
-        assertThat(userEmail, equalTo("luis34@gmail.com"));
+        assertThat(userEmail, equalTo(loginUserRequest.getEmail().toLowerCase()));
     }
     /*Get User*/
     @Test
@@ -157,7 +183,7 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that user receives a status code 200 when sends a request with the valid token ")
     @Story("Get User")
     public void verifyStatusCode200WithValidCredentialsTest(){
-        Response response = genericGetRequest(getUserTokenFromLoginUser(), "users/me");
+        Response response = client.getUser(getUserTokenFromLoginUser());
         int statusCode = response.getStatusCode();
 
         assertThat(statusCode, equalTo(HttpStatus.SC_OK));
@@ -168,7 +194,7 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that the user receives a status code 401 when  sends a request with the invalid token")
     @Story("Get User")
     public void verifyStatusCode401WithInvalidCredentialsTest(){
-        Response response = genericGetRequest(getUserTokenFromLoginUser()+"0", "users/me");
+        Response response = client.getUser(getUserTokenFromLoginUser()+"0");
         int statusCode = response.getStatusCode();
 
         assertThat(statusCode, equalTo(HttpStatus.SC_UNAUTHORIZED));
@@ -180,15 +206,33 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that the user receives a message when sends a request without the token")
     @Story("Get User")
     public void errorMessageWhenSendWithoutTokenTest(){
-        Response response = genericGetRequest("", "users/me");
+        Response response = client.getUser("");
         int statusCode = response.getStatusCode();
-        String body = response.getBody().asString();
-        String errorMessage = from(body).getString("error");
+        String errorMessage = Responses.as(response, ErrorResponse.class).getError();
 
         assertThat(statusCode, equalTo(HttpStatus.SC_UNAUTHORIZED));
         assertThat(errorMessage, equalTo("Please authenticate."));
     }
 
+    @Test
+    @Severity(SeverityLevel.MINOR)
+    @DisplayName("Unchanged user is revalidated instead of downloaded")
+    @Description("Verify that a repeated get user is answered 304 by the service and served from the conditional GET cache")
+    @Story("Get User")
+    public void getUserRevalidatedFromCacheTest(){
+        Assume.assumeTrue(CassetteFilter.Mode.fromProperty() == CassetteFilter.Mode.OFF
+                && ConditionalGetFilter.enabledFromProperty());
+        String token = getUserTokenFromLoginUser();
+        Response first = client.getUser(token);
+        long hits = ConditionalGetFilter.shared().hits();
+
+        Response second = client.getUser(token);
+
+        assertThat(second.getStatusCode(), equalTo(HttpStatus.SC_OK));
+        assertThat(second.asString(), equalTo(first.asString()));
+        assertThat(ConditionalGetFilter.shared().hits(), greaterThan(hits));
+    }
+
     /*POST Add Contact*/
     @Test
     @Severity(SeverityLevel.CRITICAL)
@@ -206,8 +250,10 @@ public class ThinkingTest extends BaseApi {
                 .postalCode("1524")
                 .build();
 
-        String validateResponse =  genericMethodPostAddContact(getUserTokenFromLoginUser(), contactRequest, "contacts", HttpStatus.SC_CREATED);
-        assertThat(validateResponse, notNullValue());
+        Response validateResponse = client.addContact(getUserTokenFromLoginUser(), contactRequest);
+        assertThat(validateResponse.getStatusCode(), equalTo(HttpStatus.SC_CREATED));
+        ContactResponse contact = Responses.as(validateResponse, ContactResponse.class);
+        assertThat(contact.getId(), notNullValue());
     }
 
     @Test
@@ -226,8 +272,9 @@ public class ThinkingTest extends BaseApi {
                 .postalCode("")
                 .build();
 
-        String validateResponse = genericMethodPostAddContact(getUserTokenFromLoginUser(), contactRequest, "contacts", HttpStatus.SC_BAD_REQUEST);
-        String message = from(validateResponse).get("message");
+        Response validateResponse = client.addContact(getUserTokenFromLoginUser(), contactRequest);
+        assertThat(validateResponse.getStatusCode(), equalTo(HttpStatus.SC_BAD_REQUEST));
+        String message = Responses.as(validateResponse, ErrorResponse.class).getMessage();
         assertThat(message, notNullValue());
         assertThat(message, equalTo("Contact validation failed: firstName: Path `firstName` is required., lastName: Path `lastName` is required., birthdate: Birthdate is invalid, email: Expected a string but received a null, phone: Expected a string but received a null, postalCode: Expected a string but received a null"));
     }
@@ -244,8 +291,9 @@ public class ThinkingTest extends BaseApi {
                 .lastName("Cadima")
                 .build();
 
-        String validateResponse = genericMethodPostAddContact(getUserTokenFromLoginUser()+"a", contactRequest, "contacts", HttpStatus.SC_UNAUTHORIZED);
-        String errorMessage = from(validateResponse).get("error");
+        Response validateResponse = client.addContact(getUserTokenFromLoginUser()+"a", contactRequest);
+        assertThat(validateResponse.getStatusCode(), equalTo(HttpStatus.SC_UNAUTHORIZED));
+        String errorMessage = Responses.as(validateResponse, ErrorResponse.class).getError();
         assertThat(errorMessage, notNullValue());
         assertThat(errorMessage, equalTo("Please authenticate."));
     }
@@ -266,11 +314,13 @@ public class ThinkingTest extends BaseApi {
                 .postalCode("1524")
                 .build();
 
-        String validateResponse = genericMethodPostAddContact(getUserTokenFromLoginUser(), contactRequest, "contacts", HttpStatus.SC_CREATED);
+        Response validateResponse = client.addContact(getUserTokenFromLoginUser(), contactRequest);
+        assertThat(validateResponse.getStatusCode(), equalTo(HttpStatus.SC_CREATED));
+        ContactResponse contact = Responses.as(validateResponse, ContactResponse.class);
 
-        String contactId = from(validateResponse).get("_id");
+        String contactId = contact.getId();
         assertThat(contactId, notNullValue());
-        String contactBirthdate = from(validateResponse).get("birthdate");
+        String contactBirthdate = contact.getBirthdate();
         assertThat(contactBirthdate, equalTo("1991/01/01"));
     }
 
@@ -282,7 +332,7 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that user receives a status code 200 when sends a request  Contact list with  the valid token")
     @Story("Get contacts")
     public void getContactListUserWithValidTokenTest() {
-        Response response = genericGetRequest(getUserTokenFromLoginUser(), "contacts");
+        Response response = client.listContacts(getUserTokenFromLoginUser());
 
         int statusCode = response.getStatusCode();
         assertThat(statusCode, equalTo(HttpStatus.SC_OK));
@@ -294,7 +344,7 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that the user receives a status code 401 when sends a request  Contact list   invalid token.")
     @Story("Get contacts")
     public void getInvalidStatusCodeWithInvalidTokenTest() {
-        Response response = genericGetRequest(getUserTokenFromLoginUser() + "0", "contacts");
+        Response response = client.listContacts(getUserTokenFromLoginUser() + "0");
         int statusCode = response.getStatusCode();
 
         assertThat(statusCode, equalTo(HttpStatus.SC_UNAUTHORIZED));
@@ -306,10 +356,10 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that the session number of a new contact is integer")
     @Story("Get contacts")
     public void  verifyThatSessionNumberInContactIsIntegerTest() {
-        Response response = genericGetRequest(getUserTokenFromLoginUser(), "contacts");
+        String token = getUserTokenFromLoginUser();
+        FixtureScheduler.shared().get(contactId());
 
-        String body = response.getBody().asString();
-        int v = from(body).getInt("[0].__v");
+        int v = client.streamContacts(token, ContactStream::first).get().getVersion();
 
         assertThat(v, equalTo(0 ));
 
@@ -321,14 +371,25 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that is possible to get all contact list information of user  using page filter")
     @Story("Get contacts")
     public void  getAllContactListTest3() {
-        Response response = genericGetRequest(getUserTokenFromLoginUser(), "contacts");
+        String token = getUserTokenFromLoginUser();
+        int country = contacts.byCountry(token, "USA").size();
 
-        String body = response.getBody().asString();
+        ContactRequest contactRequest = ContactRequest
+                .builder()
+                .firstName("Ana")
+                .lastName("Rojas")
+                .email("ana.rojas@gmail.com")
+                .city("Miami")
+                .country("USA")
+                .build();
+        Response response = client.addContact(token, contactRequest);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.SC_CREATED));
+        String idContact = Responses.as(response, ContactResponse.class).getId();
 
-        List<Map> country= from(body).get(" findAll { list -> list.country  == 'USA' }");
-        System.out.println("*********************" );
-        System.out.println("Country :" + country);
-        System.out.println("Country size :" + country.size());
+        //Answered from the index, which picked the new contact up from the POST response
+        assertThat(contacts.byCountry(token, "USA").size(), equalTo(country + 1));
+        assertThat(contacts.byCity(token, "Miami").stream().map(ContactResponse::getId).collect(Collectors.toList()),
+                hasItem(idContact));
     }
 
     /*PATH user*/
@@ -341,7 +402,7 @@ public class ThinkingTest extends BaseApi {
         UserRequest userRequest = UserRequest.builder()
                 .firstName("Carlos").build();
 
-        Response response = genericPathUserRequest(getUserTokenFromLoginUser(), userRequest, "/users/me");
+        Response response = client.updateUser(getUserTokenFromLoginUser(), userRequest);
 
         int status = response.getStatusCode();
         assertThat(status, equalTo(HttpStatus.SC_OK));
@@ -356,10 +417,9 @@ public class ThinkingTest extends BaseApi {
         UserRequest userRequest = UserRequest.builder()
                 .firstName("Carlita").build();
 
-        Response response = genericPathUserRequest(getUserTokenFromLoginUser(), userRequest, "/users/me");
+        Response response = client.updateUser(getUserTokenFromLoginUser(), userRequest);
 
-        String body = response.getBody().asString();
-        String updateFirstName = from(body).get("firstName");
+        String updateFirstName = Responses.as(response, UserResponse.class).getFirstName();
 
         assertThat(updateFirstName, equalTo("Carlita"));
     }
@@ -373,7 +433,7 @@ public class ThinkingTest extends BaseApi {
         UserRequest userRequest = UserRequest.builder()
                 .firstName("Carla").build();
 
-        Response response = genericPathUserRequest(getUserTokenFromLoginUser(), userRequest, "/users/me");
+        Response response = client.updateUser(getUserTokenFromLoginUser(), userRequest);
 
         String body = response.getBody().asString();
         assertThat(body, notNullValue());
@@ -388,7 +448,7 @@ public class ThinkingTest extends BaseApi {
         UserRequest userRequest = UserRequest.builder()
                 .firstName("Carlita").build();
 
-        Response response = genericPathUserRequest(getUserTokenFromLoginUser()+"0", userRequest, "/users/me");
+        Response response = client.updateUser(getUserTokenFromLoginUser()+"0", userRequest);
 
         int status = response.getStatusCode();
         assertThat(status, equalTo(HttpStatus.SC_UNAUTHORIZED));
@@ -403,10 +463,9 @@ public class ThinkingTest extends BaseApi {
         UserRequest userRequest = UserRequest.builder()
                 .firstName("Carlita").build();
 
-        Response response = genericPathUserRequest(getUserTokenFromLoginUser()+"0", userRequest, "/users/me");
+        Response response = client.updateUser(getUserTokenFromLoginUser()+"0", userRequest);
 
-        String body = response.getBody().asString();
-        String errorMessage = from(body).get("error");
+        String errorMessage = Responses.as(response, ErrorResponse.class).getError();
         assertThat(errorMessage, equalTo("Please authenticate."));
     }
 
@@ -417,7 +476,8 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that user authenticated receive response with status code 200 when logout with valid token")
     @Story("Post log out user")
     public void verifyStatusCode200WhenUseValidTokenTest(){
-        Response responseUser = genericMethodPostLogOutUser(getUserTokenFromLoginUser(), "users/logout");
+        Response responseUser = client.logout(getUserTokenFromLoginUser());
+        TokenProvider.getInstance().invalidate(WorkerUsers.current());
 
         int statusCode = responseUser.getStatusCode();
         assertThat(statusCode, equalTo(HttpStatus.SC_OK));
@@ -430,7 +490,7 @@ public class ThinkingTest extends BaseApi {
     @Story("Post log out user")
     public void verifyStatusCodeWhenUseInvalidTokenTest(){
 
-        Response responseUser = genericMethodPostLogOutUser(getUserTokenFromLoginUser()+"a", "users/logout");
+        Response responseUser = client.logout(getUserTokenFromLoginUser()+"a");
 
         int statusCode = responseUser.getStatusCode();
         assertThat(statusCode, equalTo(HttpStatus.SC_UNAUTHORIZED));
@@ -442,11 +502,10 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that the user receive a message when use an token empty for request logout")
     @Story("Post log out user")
     public void verifyIfReceiveErrorMessageWhenUseTokenEmptyTest(){
-        Response responseUser = genericMethodPostLogOutUser("", "users/logout");
+        Response responseUser = client.logout("");
 
         int statusCode = responseUser.getStatusCode();
-        String body = responseUser.getBody().asString();
-        String errorMessage = from(body).get("error");
+        String errorMessage = Responses.as(responseUser, ErrorResponse.class).getError();
 
         assertThat(statusCode, equalTo(HttpStatus.SC_UNAUTHORIZED));
         assertThat(errorMessage, equalTo("Please authenticate."));
@@ -459,23 +518,20 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that the user receives status code 200 when the request update is successful.")
     @Story("Put contact")
     public void verifyResponseStatus200WhenUpdateContactTest(){
-        String token = getUserTokenFromLoginUser();
-        Response response = genericGetRequest(token, "contacts");
+        Fixture<String> token = token();
+        Fixture<String> contactId = contactId();
+        Scenario.given(token, contactId).run(data -> {
+            ContactRequest contactRequest = ContactRequest
+                    .builder()
+                    .birthdate("1990-01-01")
+                    .phone("74859632")
+                    .build();
 
-        String body = response.getBody().asString();
-        String idContact = from(body).getString("[0]._id");
-        assertThat(idContact, notNullValue());
+            Response responseUpdateContact = client.updateContact(data.get(token), data.get(contactId), contactRequest);
 
-        ContactRequest contactRequest = ContactRequest
-                .builder()
-                .birthdate("1990-01-01")
-                .phone("74859632")
-                .build();
-
-        Response responseUpdateContact = responseUpdateContact(contactRequest, token,"contacts/", idContact);
-
-        int status = responseUpdateContact.getStatusCode();
-        assertThat(status, equalTo(HttpStatus.SC_OK));
+            int status = responseUpdateContact.getStatusCode();
+            assertThat(status, equalTo(HttpStatus.SC_OK));
+        });
     }
     @Test
     @Severity(SeverityLevel.CRITICAL)
@@ -483,22 +539,19 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that the user receives status code 401 when the Token  is empty.")
     @Story("Put contact")
     public void verifyResponseStatus401WhenEmptyTokenTest(){
-        Response response = genericGetRequest(getUserTokenFromLoginUser(), "contacts");
+        Fixture<String> contactId = contactId();
+        Scenario.given(contactId).run(data -> {
+            ContactRequest contactRequest = ContactRequest
+                    .builder()
+                    .birthdate("1990-01-01")
+                    .phone("74859632")
+                    .build();
 
-        String body = response.getBody().asString();
-        String idContact = from(body).getString("[0]._id");
-        assertThat(idContact, notNullValue());
+            Response responseUpdateContact = client.updateContact("", data.get(contactId), contactRequest);
 
-        ContactRequest contactRequest = ContactRequest
-                .builder()
-                .birthdate("1990-01-01")
-                .phone("74859632")
-                .build();
-
-        Response responseUpdateContact = responseUpdateContact(contactRequest, "","contacts/", idContact);
-
-        int status = responseUpdateContact.getStatusCode();
-        assertThat(status, equalTo(HttpStatus.SC_UNAUTHORIZED));
+            int status = responseUpdateContact.getStatusCode();
+            assertThat(status, equalTo(HttpStatus.SC_UNAUTHORIZED));
+        });
     }
 
     @Test
@@ -507,22 +560,45 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that the user receives status code 400 when the Id  is invalid.")
     @Story("Put contact")
     public void verifyResponseStatus400WhenInvalidIdTest(){
-        String token = getUserTokenFromLoginUser();
-        Response response = genericGetRequest(token, "contacts");
+        Fixture<String> token = token();
+        Fixture<String> contactId = contactId();
+        Scenario.given(token, contactId).run(data -> {
+            ContactRequest contactRequest = ContactRequest
+                    .builder()
+                    .birthdate("1990-01-01")
+                    .build();
 
-        String body = response.getBody().asString();
-        String idContact = from(body).getString("[0]._id");
-        assertThat(idContact, notNullValue());
+            Response responseUpdateContact = client.updateContact(data.get(token), data.get(contactId)+"0", contactRequest);
+
+            int status = responseUpdateContact.getStatusCode();
+            assertThat(status, equalTo(HttpStatus.SC_BAD_REQUEST));
+        });
+    }
 
+    @Test
+    @Severity(SeverityLevel.NORMAL)
+    @DisplayName("Update first contact while reading the profile")
+    @Description("Verify that the first contact of the list can be updated while the user profile is read concurrently")
+    @Story("Put contact")
+    public void updateFirstContactAsyncTest() {
+        //Cassettes only see the RestAssured filter chain
+        Assume.assumeTrue(CassetteFilter.Mode.fromProperty() == CassetteFilter.Mode.OFF);
+        String token = getUserTokenFromLoginUser();
+        FixtureScheduler.shared().get(contactId());
+        AsyncContactListClient client = AsyncContactListClient.shared();
         ContactRequest contactRequest = ContactRequest
                 .builder()
-                .birthdate("1990-01-01")
+                .firstName("Async")
+                .lastName("Update")
                 .build();
 
-        Response responseUpdateContact = responseUpdateContact(contactRequest, token,"contacts/", idContact+"0");
+        CompletableFuture<AsyncResponse> profile = client.getUser(token);
+        CompletableFuture<AsyncResponse> update = client.listContacts(token)
+                .thenApply(list -> list.asList(ContactResponse.class).get(0).getId())
+                .thenCompose(idContact -> client.updateContact(token, idContact, contactRequest));
 
-        int status = responseUpdateContact.getStatusCode();
-        assertThat(status, equalTo(HttpStatus.SC_BAD_REQUEST));
+        assertThat(update.join().getStatusCode(), equalTo(HttpStatus.SC_OK));
+        assertThat(profile.join().getStatusCode(), equalTo(HttpStatus.SC_OK));
     }
 
     /*Delete Contact*/
@@ -532,17 +608,16 @@ public class ThinkingTest extends BaseApi {
     @DisplayName("Delete contact - Status code 200 whit valid id")
     @Description("Verify that the user receives status code 200 when sends a request delete with a valid token.")
     @Story("Delete a contact")
+    @NetworkBudget(maxCalls = 3, maxMillis = 500)
     public void deleteContactWithIdTest(){
-        String token = getUserTokenFromLoginUser();
-        Response response = genericGetRequest(token, "contacts");
-
-        String body = response.getBody().asString();
-        String idContact = from(body).getString("[0]._id");
+        Fixture<String> token = token();
+        Fixture<String> contactId = contactId();
+        Scenario.given(token).consuming(contactId).run(data -> {
+            Response responseDeleteContact = client.deleteContact(data.get(token), data.get(contactId));
 
-        Response responseDeleteContact = responseDeleteContact(token, "contacts/", idContact);
-
-        int status = responseDeleteContact.getStatusCode();
-        assertThat(status, equalTo(HttpStatus.SC_OK));
+            int status = responseDeleteContact.getStatusCode();
+            assertThat(status, equalTo(HttpStatus.SC_OK));
+        });
     }
 
     @Test
@@ -552,16 +627,13 @@ public class ThinkingTest extends BaseApi {
     //verificar que el usuario reciva a status code 401 if solicita eliminar un contacto con un token vacio
     @Story("Delete a contact")
     public void deleteContactWithoutTokenUserTest(){
-        String token = getUserTokenFromLoginUser();
-        Response response = genericGetRequest(token, "contacts");
-
-        String body = response.getBody().asString();
-        String idContact = from(body).getString("[0]._id");
-
-        Response responseDeleteContact = responseDeleteContact("", "contacts/", idContact);
+        Fixture<String> contactId = contactId();
+        Scenario.given(contactId).run(data -> {
+            Response responseDeleteContact = client.deleteContact("", data.get(contactId));
 
-        int status = responseDeleteContact.getStatusCode();
-        assertThat(status, equalTo(HttpStatus.SC_UNAUTHORIZED));
+            int status = responseDeleteContact.getStatusCode();
+            assertThat(status, equalTo(HttpStatus.SC_UNAUTHORIZED));
+        });
     }
 
     @Test
@@ -570,16 +642,14 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that the user receives  status code 401 if requested to delete a contact  with invalid token.")
     @Story("Delete a contact")
     public void deleteContactWhitInvalidTokenUserTest(){
-        String token = getUserTokenFromLoginUser();
-        Response response = genericGetRequest(token, "contacts");
+        Fixture<String> token = token();
+        Fixture<String> contactId = contactId();
+        Scenario.given(token, contactId).run(data -> {
+            Response responseDeleteContact = client.deleteContact(data.get(token)+"0", data.get(contactId));
 
-        String body = response.getBody().asString();
-        String idContact = from(body).getString("[0]._id");
-
-        Response responseDeleteContact = responseDeleteContact(token+"0", "contacts/", idContact);
-
-        int status = responseDeleteContact.getStatusCode();
-        assertThat(status, equalTo(HttpStatus.SC_UNAUTHORIZED));
+            int status = responseDeleteContact.getStatusCode();
+            assertThat(status, equalTo(HttpStatus.SC_UNAUTHORIZED));
+        });
     }
 
     @Test
@@ -589,9 +659,13 @@ public class ThinkingTest extends BaseApi {
     @Story("Delete a contact")
     public void deleteContactWithoutIdTest(){
         String token = getUserTokenFromLoginUser();
-        Response response = genericGetRequest(token, "contacts");
+        Response response = client.listContacts(token);
 
-        Response responseDeleteContact = responseDeleteContact(token, "contacts/", "");
+        //The 503 is the expected answer here, not a transient failure to retry or trip the breaker on
+        Response responseDeleteContact = client.toBuilder()
+                .skipFilter(ResilienceFilter.class)
+                .build()
+                .deleteContact(token, "");
 
         int status = responseDeleteContact.getStatusCode();
         assertThat(status, equalTo(HttpStatus.SC_SERVICE_UNAVAILABLE));
@@ -604,7 +678,10 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that the user receives status code 200 when sends a DELETE user request with a valid token")
     @Story("Delete user")
     public void deleteUserTest(){
-        Response response = responseDeleteUser(getUserTokenFromLoginUser(), "/users/me");
+        PostLoginUserRequest throwawayUser = WorkerUsers.createUser("Deleted");
+        Response response = client.deleteUser(TokenProvider.getInstance().getToken(throwawayUser));
+        TokenProvider.getInstance().invalidate(throwawayUser);
+
         int statusCode = response.getStatusCode();
         assertThat(statusCode, equalTo(HttpStatus.SC_OK));
     }
@@ -615,7 +692,7 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that the user receives status code 401 when sends DELETE user request with a invalid token")
     @Story("Delete user")
     public void deleteUserWithInvalidTokenTest(){
-        Response response = responseDeleteUser(getUserTokenFromLoginUser()+"0", "/users/me");
+        Response response = client.deleteUser(getUserTokenFromLoginUser()+"0");
         int statusCode = response.getStatusCode();
         assertThat(statusCode, equalTo(HttpStatus.SC_UNAUTHORIZED));
     }
@@ -626,114 +703,160 @@ public class ThinkingTest extends BaseApi {
     @Description("Verify that the user receives status code 401 when sends DELETE user request with empty token")
     @Story("Delete user")
     public void deleteUserWhitEmptyTokenTest(){
-        Response response = responseDeleteUser("", "/users/me");
+        Response response = client.deleteUser("");
         int statusCode = response.getStatusCode();
         assertThat(statusCode, equalTo(HttpStatus.SC_UNAUTHORIZED));
     }
-    /*Generic Method*/
-    //AddUser
-    private Response genericMethodPostAddUser(UserRequest userRequest, String path) {
-        Response response = given()
-                .contentType(ContentType.JSON)
-                .body(userRequest)
-                .post(path);
-        return response;
-    }
-    //LoginUser
-    private Response genericPostLoginUserRequest(PostLoginUserRequest loginUserRequest, String path){
-        Response response = given()
-                .contentType(ContentType.JSON)
-                .body(loginUserRequest)
-                .post(path);
-
-        return response;
-    }
-    //GetUser
-    private Response genericGetRequest(String token, String path){
-        Response response = given()
-                .auth()
-                .oauth2(token)
-                .when()
-                .get(path);
-        return response;
-    }
-    //PathUser
-    private Response genericPathUserRequest(String token, UserRequest userRequest, String path){
-        Response response = given()
-                .auth()
-                .oauth2(token)
-                .contentType(ContentType.JSON)
-                .body(userRequest)
-                .patch(path);
-        return response;
-    }
-    //Log out User
-    private Response genericMethodPostLogOutUser(String token, String path) {
-        Response response = given()
-                .auth()
-                .oauth2(token)
-                .post(path);
-        return response;
-    }
-
-    //Contact
-    private String genericMethodPostAddContact(String token, ContactRequest contactRequest, String request, int codeStatus) {
-        String response =  given()
-                .auth()
-                .oauth2(token)
-                .contentType(ContentType.JSON)
-                .body(contactRequest)
-                .post(request)
-                .then()
-                .assertThat()
-                .statusCode(codeStatus)
-                .extract().body().asString();
-        return response;
+    /*Resilience*/
+    @Test
+    @Severity(SeverityLevel.NORMAL)
+    @DisplayName("Transient 503 is retried through the inner filters")
+    @Description("Verify that a GET answered 503 twice is retried until it succeeds, each attempt passing through the filters inside ResilienceFilter")
+    @Story("Resilience")
+    public void retriesThroughInnerFiltersTest(){
+        assumeLocalFake();
+        String token = getUserTokenFromLoginUser();
+        ResilienceFilter resilience = new ResilienceFilter(RetryPolicy.idempotent(3, 1), null, new CircuitBreaker(100, 60_000));
+        AtomicInteger attempts = new AtomicInteger();
+        OrderedFilter attemptCounter = new OrderedFilter() {
+            @Override
+            public int getOrder() {
+                return LOWEST_PRECEDENCE - 1;
+            }
+
+            @Override
+            public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec, FilterContext ctx) {
+                attempts.incrementAndGet();
+                return ctx.next(requestSpec, responseSpec);
+            }
+        };
+        FakeContactListServer.shared().failNext(token, HttpStatus.SC_SERVICE_UNAVAILABLE, 2);
+        try {
+            Response response = resilientClient(resilience).toBuilder().filter(attemptCounter).build().getUser(token);
+
+            assertThat(response.getStatusCode(), equalTo(HttpStatus.SC_OK));
+            assertThat(resilience.retries(), equalTo(2L));
+            assertThat(resilience.exhausted(), equalTo(0L));
+            assertThat(attempts.get(), equalTo(3));
+        } finally {
+            FakeContactListServer.shared().clearFaults(token);
+        }
     }
-    //GetToken
-    private String getUserTokenFromLoginUser(){
-        PostLoginUserRequest loginUserRequest = PostLoginUserRequest.builder()
-                .email("luis32@gmail.com")
-                .password("myPassword")
-                .build();
 
-        Response responseLoginUser = genericPostLoginUserRequest(loginUserRequest, "users/login");
+    @Test
+    @Severity(SeverityLevel.NORMAL)
+    @DisplayName("Persistent 429 gives up after the last retry")
+    @Description("Verify that a GET answered 429 on every attempt is retried the configured number of times and then returned as 429")
+    @Story("Resilience")
+    public void retriesGiveUpOnPersistent429Test(){
+        assumeLocalFake();
+        String token = getUserTokenFromLoginUser();
+        ResilienceFilter resilience = new ResilienceFilter(RetryPolicy.idempotent(3, 1), null, new CircuitBreaker(100, 60_000));
+        FakeContactListServer.shared().failNext(token, 429, 4);
+        try {
+            Response response = resilientClient(resilience).getUser(token);
 
-        String body = responseLoginUser.getBody().asString();
-        String userToken = from(body).getString("token");
-        assertThat(userToken, notNullValue());
+            assertThat(response.getStatusCode(), equalTo(429));
+            assertThat(resilience.retries(), equalTo(3L));
+            assertThat(resilience.exhausted(), equalTo(1L));
+        } finally {
+            FakeContactListServer.shared().clearFaults(token);
+        }
+    }
 
-        return userToken;
+    @Test
+    @Severity(SeverityLevel.NORMAL)
+    @DisplayName("Circuit opens after consecutive 503")
+    @Description("Verify that the circuit breaker opens after its failure threshold and rejects the next call without sending it")
+    @Story("Resilience")
+    public void circuitOpensAfterConsecutiveFailuresTest(){
+        assumeLocalFake();
+        String token = getUserTokenFromLoginUser();
+        CircuitBreaker breaker = new CircuitBreaker(2, 60_000);
+        ContactListClient resilient = resilientClient(new ResilienceFilter(RetryPolicy.NONE, null, breaker));
+        FakeContactListServer.shared().failNext(token, HttpStatus.SC_SERVICE_UNAVAILABLE, 2);
+        try {
+            assertThat(resilient.getUser(token).getStatusCode(), equalTo(HttpStatus.SC_SERVICE_UNAVAILABLE));
+            assertThat(resilient.getUser(token).getStatusCode(), equalTo(HttpStatus.SC_SERVICE_UNAVAILABLE));
+
+            assertThrows(CircuitOpenException.class, () -> resilient.getUser(token));
+            assertThat(breaker.state(), equalTo(CircuitBreaker.State.OPEN));
+            assertThat(breaker.trips(), equalTo(1L));
+            assertThat(breaker.rejected(), equalTo(1L));
+        } finally {
+            FakeContactListServer.shared().clearFaults(token);
+        }
+    }
+
+    @Test
+    @Severity(SeverityLevel.NORMAL)
+    @DisplayName("Rate limiter paces requests")
+    @Description("Verify that four calls through a 10 per second token bucket without burst take at least 300 ms")
+    @Story("Resilience")
+    public void rateLimiterPacesRequestsTest(){
+        assumeLocalFake();
+        String token = getUserTokenFromLoginUser();
+        TokenBucket bucket = new TokenBucket(10, 1);
+        ContactListClient resilient = resilientClient(new ResilienceFilter(RetryPolicy.NONE, bucket, new CircuitBreaker(100, 60_000)));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            assertThat(resilient.getUser(token).getStatusCode(), equalTo(HttpStatus.SC_OK));
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(elapsedMillis, greaterThanOrEqualTo(295L));
+        assertThat(bucket.throttled(), greaterThan(0L));
+    }
+    /*Generic Method*/
+    //Faults are injected into the in-process fake, and a cassette would answer before the filter is reached
+    private static void assumeLocalFake(){
+        Assume.assumeTrue(ServiceTarget.isLocal() && CassetteFilter.Mode.fromProperty() == CassetteFilter.Mode.OFF);
     }
 
-    //PUT CONTACT
-    private Response responseUpdateContact(ContactRequest requestJson, String token, String path, String idContact){
-        Response response = given()
-                .auth()
-                .oauth2(token)
-                .contentType(ContentType.JSON)
-                .body(requestJson)
-                .put(path+idContact);
-        return response;
+    //Replaces the shared ResilienceFilter, so the test reads counters no other test touches
+    private static ContactListClient resilientClient(ResilienceFilter resilience){
+        return client.toBuilder()
+                .skipFilter(ResilienceFilter.class)
+                .filter(resilience)
+                .build();
+    }
+
+    //GetToken
+    private String getUserTokenFromLoginUser(){
+        return TokenProvider.getInstance().getToken(WorkerUsers.current());
     }
 
-    //Delete contact
-    public Response responseDeleteContact(String token, String path, String idContact){
-        Response response = given()
-                .auth()
-                .oauth2(token)
-                .when()
-                .delete(path+idContact);
-        return response;
+    //Token of the worker's account; TokenProvider already caches it and drops it on a 401
+    private Fixture<String> token(){
+        PostLoginUserRequest user = WorkerUsers.current();
+        return Fixture.of("token:" + user.getEmail(), () -> TokenProvider.getInstance().getToken(user)).unshared();
     }
-    //Delete User
-    public Response responseDeleteUser(String token, String path){
-        Response response = given()
-                .auth()
-                .oauth2(token)
-                .when()
-                .delete(path);
-        return response;
+
+    //A contact of the worker's account, looked up once and shared by every test that leaves it in place
+    private Fixture<String> contactId(){
+        return Fixture.of("contactId:" + WorkerUsers.current().getEmail(), token(), this::getFirstContactId);
     }
 
+    //First contact of the account, adding one when the list is empty
+    private String getFirstContactId(String token){
+        Optional<ContactResponse> first = client.streamContacts(token, ContactStream::first);
+        if (first.isPresent()) {
+            return first.get().getId();
+        }
+
+        ContactRequest contactRequest = ContactRequest
+                .builder()
+                .firstName("Diego")
+                .lastName("Cadima")
+                .birthdate("1991/01/01")
+                .email("diego@gmail.com")
+                .phone("74896512")
+                .postalCode("1524")
+                .build();
+
+        Response validateResponse = client.addContact(token, contactRequest);
+        assertThat(validateResponse.getStatusCode(), equalTo(HttpStatus.SC_CREATED));
+        return Responses.as(validateResponse, ContactResponse.class).getId();
+    }
 }
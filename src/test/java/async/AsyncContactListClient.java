@@ -0,0 +1,196 @@
+package async;
+
+import auth.TokenProvider;
+import client.CallListener;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import config.ServiceTarget;
+import config.TestProperties;
+import http.Endpoints;
+import metrics.LatencyRecorder;
+import model.FrozenBody;
+import model.Responses;
+import model.contact.ContactRequest;
+import model.user.PostLoginUserRequest;
+import model.user.UserRequest;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Non-blocking counterpart of the ThinkingTest helpers on top of java.net.http.HttpClient.
+ * Each call returns as soon as the request is queued; responses complete on a small callback
+ * pool, so thousands of flows in flight need no more than -Dthinking.async.threads threads.
+ * Calls are recorded in the LatencyRecorder and rejected tokens are dropped from the
+ * TokenProvider, like the RestAssured filter chain does.
+ */
+public class AsyncContactListClient {
+    private static final int THREADS = TestProperties.getInt("thinking.async.threads", 4);
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(TestProperties.getInt("thinking.http.connectTimeoutMs", 10_000));
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMillis(TestProperties.getInt("thinking.http.readTimeoutMs", 30_000));
+    private static AsyncContactListClient shared;
+
+    private final HttpClient client;
+    private final String baseUri;
+    private final List<CallListener> listeners = new CopyOnWriteArrayList<>();
+
+    public AsyncContactListClient(String baseUri, ExecutorService executor) {
+        this(baseUri.endsWith("/") ? baseUri : baseUri + "/", HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .executor(executor)
+                .build());
+        listeners.add((method, uri, status, elapsedNanos, failure) -> {
+            if (status >= 0) {
+                LatencyRecorder.getInstance().record(method, Endpoints.normalize(uri), status,
+                        TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+            }
+        });
+    }
+
+    private AsyncContactListClient(String baseUri, HttpClient client) {
+        this.baseUri = baseUri;
+        this.client = client;
+    }
+
+    //One client for the JVM, aimed at the configured service target
+    public static synchronized AsyncContactListClient shared() {
+        if (shared == null) {
+            AtomicInteger sequence = new AtomicInteger();
+            shared = new AsyncContactListClient(ServiceTarget.baseUri(), Executors.newFixedThreadPool(THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "async-http-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+        return shared;
+    }
+
+    public AsyncContactListClient addListener(CallListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    public boolean removeListener(CallListener listener) {
+        return listeners.remove(listener);
+    }
+
+    //Shares this client's connections and listeners, and also tells listener about the calls made through it
+    public AsyncContactListClient withListener(CallListener listener) {
+        AsyncContactListClient view = new AsyncContactListClient(baseUri, client);
+        view.listeners.addAll(listeners);
+        view.listeners.add(listener);
+        return view;
+    }
+
+    public CompletableFuture<AsyncResponse> addUser(UserRequest userRequest) {
+        return send("POST", "users", null, userRequest);
+    }
+
+    public CompletableFuture<AsyncResponse> addUser(FrozenBody userRequest) {
+        return send("POST", "users", null, userRequest);
+    }
+
+    public CompletableFuture<AsyncResponse> login(PostLoginUserRequest loginUserRequest) {
+        return send("POST", "users/login", null, loginUserRequest);
+    }
+
+    public CompletableFuture<AsyncResponse> getUser(String token) {
+        return send("GET", "users/me", token, null);
+    }
+
+    public CompletableFuture<AsyncResponse> updateUser(String token, UserRequest userRequest) {
+        return send("PATCH", "users/me", token, userRequest);
+    }
+
+    public CompletableFuture<AsyncResponse> logout(String token) {
+        return send("POST", "users/logout", token, null);
+    }
+
+    public CompletableFuture<AsyncResponse> deleteUser(String token) {
+        return send("DELETE", "users/me", token, null);
+    }
+
+    public CompletableFuture<AsyncResponse> addContact(String token, ContactRequest contactRequest) {
+        return send("POST", "contacts", token, contactRequest);
+    }
+
+    public CompletableFuture<AsyncResponse> addContact(String token, FrozenBody contactRequest) {
+        return send("POST", "contacts", token, contactRequest);
+    }
+
+    public CompletableFuture<AsyncResponse> listContacts(String token) {
+        return send("GET", "contacts", token, null);
+    }
+
+    public CompletableFuture<AsyncResponse> getContact(String token, String idContact) {
+        return send("GET", "contacts/" + idContact, token, null);
+    }
+
+    public CompletableFuture<AsyncResponse> updateContact(String token, String idContact, ContactRequest contactRequest) {
+        return send("PUT", "contacts/" + idContact, token, contactRequest);
+    }
+
+    public CompletableFuture<AsyncResponse> updateContact(String token, String idContact, FrozenBody contactRequest) {
+        return send("PUT", "contacts/" + idContact, token, contactRequest);
+    }
+
+    public CompletableFuture<AsyncResponse> deleteContact(String token, String idContact) {
+        return send("DELETE", "contacts/" + idContact, token, null);
+    }
+
+    //body may be a model object, a FrozenBody or null
+    public CompletableFuture<AsyncResponse> send(String method, String path, String token, Object body) {
+        URI uri = URI.create(baseUri + (path.startsWith("/") ? path.substring(1) : path));
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(bytesOf(body)));
+        if (body != null) {
+            request.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+
+        long start = System.nanoTime();
+        return client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, failure) -> {
+                    long elapsed = System.nanoTime() - start;
+                    int status = response == null ? -1 : response.statusCode();
+                    for (CallListener listener : listeners) {
+                        listener.onCall(method, uri.toString(), status, elapsed, failure);
+                    }
+                    if (failure != null) {
+                        throw failure instanceof RuntimeException ? (RuntimeException) failure
+                                : new IllegalStateException(method + " " + uri + " failed", failure);
+                    }
+                    if (status == 401 && token != null) {
+                        TokenProvider.getInstance().invalidateToken(token);
+                    }
+                    return new AsyncResponse(status, response.headers(), response.body());
+                });
+    }
+
+    private static byte[] bytesOf(Object body) {
+        if (body instanceof FrozenBody) {
+            return ((FrozenBody) body).bytes();
+        }
+        try {
+            return Responses.MAPPER.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Cannot serialize " + body.getClass().getSimpleName(), e);
+        }
+    }
+}
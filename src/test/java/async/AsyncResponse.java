@@ -0,0 +1,44 @@
+package async;
+
+import model.Responses;
+
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+//Status, headers and fully read body of one call made through AsyncContactListClient
+public final class AsyncResponse {
+    private final int statusCode;
+    private final HttpHeaders headers;
+    private final byte[] body;
+
+    AsyncResponse(int statusCode, HttpHeaders headers, byte[] body) {
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getHeader(String name) {
+        return headers.firstValue(name).orElse(null);
+    }
+
+    public byte[] asByteArray() {
+        return body;
+    }
+
+    public String asString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    public <T> T as(Class<T> type) {
+        return Responses.read(body, type);
+    }
+
+    public <T> List<T> asList(Class<T> elementType) {
+        return Responses.readList(body, elementType);
+    }
+}
@@ -0,0 +1,20 @@
+package auth;
+
+import io.restassured.authentication.AuthenticationScheme;
+import io.restassured.authentication.PreemptiveOAuth2HeaderScheme;
+import io.restassured.specification.FilterableRequestSpecification;
+
+public final class BearerTokens {
+
+    private BearerTokens() {
+    }
+
+    //Token sent through auth().oauth2(token), null when the request is anonymous
+    public static String of(FilterableRequestSpecification requestSpec) {
+        AuthenticationScheme scheme = requestSpec.getAuthenticationScheme();
+        if (scheme instanceof PreemptiveOAuth2HeaderScheme) {
+            return ((PreemptiveOAuth2HeaderScheme) scheme).getAccessToken();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+package auth;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.apache.http.HttpStatus;
+
+//Drops a cached login token as soon as the service rejects it
+public class TokenInvalidationFilter implements Filter {
+    private final TokenProvider tokenProvider;
+
+    public TokenInvalidationFilter(TokenProvider tokenProvider) {
+        this.tokenProvider = tokenProvider;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec, FilterContext ctx) {
+        Response response = ctx.next(requestSpec, responseSpec);
+        if (response.getStatusCode() == HttpStatus.SC_UNAUTHORIZED) {
+            tokenProvider.invalidateToken(BearerTokens.of(requestSpec));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,137 @@
+package auth;
+
+import client.ContactListClient;
+import io.restassured.response.Response;
+import metrics.NetworkCost;
+import model.Responses;
+import model.user.LoginResponse;
+import model.user.PostLoginUserRequest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+
+/*
+ * Logs in once per email/password and hands the same token to every test and thread.
+ * A token is dropped when the service answers 401 for it (see TokenInvalidationFilter)
+ * or when a test logs the user out or deletes it.
+ * The first login of a credential is provisioning and left out of the test's NetworkCost; logging
+ * in again after a token was dropped is charged to the test that needed it.
+ * The login runs outside the map: one thread logs in, others asking for the same credential wait
+ * on its future, and other credentials never wait at all.
+ */
+public final class TokenProvider {
+    private static final Logger logger = LogManager.getLogger(TokenProvider.class);
+    private static final TokenProvider INSTANCE = new TokenProvider();
+
+    private final ConcurrentMap<String, CompletableFuture<String>> tokensByCredential = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> credentialsByToken = new ConcurrentHashMap<>();
+    private final Set<String> loggedIn = ConcurrentHashMap.newKeySet();
+
+    private TokenProvider() {
+    }
+
+    public static TokenProvider getInstance() {
+        return INSTANCE;
+    }
+
+    public String getToken(PostLoginUserRequest loginUserRequest) {
+        String credential = key(loginUserRequest);
+        CompletableFuture<String> token = tokensByCredential.get(credential);
+        if (token == null) {
+            CompletableFuture<String> login = new CompletableFuture<>();
+            token = tokensByCredential.putIfAbsent(credential, login);
+            if (token == null) {
+                return logIn(credential, loginUserRequest, login);
+            }
+        }
+        if (token.isDone()) {
+            return join(token);
+        }
+        //Another thread is logging in with these credentials
+        CompletableFuture<String> pending = token;
+        return NetworkCost.waiting(() -> join(pending));
+    }
+
+    public void invalidate(PostLoginUserRequest loginUserRequest) {
+        CompletableFuture<String> token = tokensByCredential.remove(key(loginUserRequest));
+        if (token != null) {
+            if (token.isDone() && !token.isCompletedExceptionally()) {
+                credentialsByToken.remove(token.join());
+            }
+            logger.info("Dropped cached token for " + loginUserRequest.getEmail());
+        }
+    }
+
+    public void invalidateToken(String token) {
+        if (token == null) {
+            return;
+        }
+        String credential = credentialsByToken.remove(token);
+        if (credential == null) {
+            return;
+        }
+        CompletableFuture<String> cached = tokensByCredential.get(credential);
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally() && token.equals(cached.join())
+                && tokensByCredential.remove(credential, cached)) {
+            logger.info("Dropped cached token rejected by the service");
+        }
+    }
+
+    public void clear() {
+        tokensByCredential.clear();
+        credentialsByToken.clear();
+        loggedIn.clear();
+    }
+
+    private String logIn(String credential, PostLoginUserRequest loginUserRequest, CompletableFuture<String> pending) {
+        try {
+            String token = loggedIn.add(credential)
+                    ? NetworkCost.excluded(() -> login(loginUserRequest))
+                    : login(loginUserRequest);
+            credentialsByToken.put(token, credential);
+            pending.complete(token);
+            return token;
+        } catch (RuntimeException | Error e) {
+            //The next caller logs in again
+            tokensByCredential.remove(credential, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static String join(CompletableFuture<String> token) {
+        try {
+            return token.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private String login(PostLoginUserRequest loginUserRequest) {
+        Response responseLoginUser = ContactListClient.defaultClient().login(loginUserRequest);
+
+        String userToken = Responses.as(responseLoginUser, LoginResponse.class).getToken();
+        assertThat(userToken, notNullValue());
+
+        logger.info("Logged in " + loginUserRequest.getEmail());
+        return userToken;
+    }
+
+    private static String key(PostLoginUserRequest loginUserRequest) {
+        return loginUserRequest.getEmail().toLowerCase() + '\u0000' + loginUserRequest.getPassword();
+    }
+}
@@ -0,0 +1,103 @@
+package auth;
+
+import client.ContactListClient;
+import config.TestProperties;
+import http.CassetteFilter;
+import io.restassured.response.Response;
+import metrics.NetworkCost;
+import model.Responses;
+import model.user.LoginResponse;
+import model.user.PostLoginUserRequest;
+import model.user.UserRequest;
+import org.apache.http.HttpStatus;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/*
+ * Every test worker thread gets its own account, registered on first use and deleted
+ * by tearDownAll() at the end of the run, so tests never depend on each other's data.
+ */
+public final class WorkerUsers {
+    private static final Logger logger = LogManager.getLogger(WorkerUsers.class);
+    private static final String PASSWORD = "myPassword";
+    //Cassettes replay recorded bodies, so recorded and replayed runs must generate the same emails
+    private static final String RUN_ID = TestProperties.getString("thinking.runId",
+            CassetteFilter.Mode.fromProperty() != CassetteFilter.Mode.OFF ? "cassette"
+                    : Long.toString(System.currentTimeMillis(), 36) + Integer.toString(ThreadLocalRandom.current().nextInt(36 * 36), 36));
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static final List<PostLoginUserRequest> CREATED = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<PostLoginUserRequest> CURRENT = ThreadLocal.withInitial(WorkerUsers::provision);
+
+    private WorkerUsers() {
+    }
+
+    //Credentials of the account owned by the calling worker
+    public static PostLoginUserRequest current() {
+        return CURRENT.get();
+    }
+
+    public static String runId() {
+        return RUN_ID;
+    }
+
+    public static String uniqueEmail(String prefix) {
+        return (prefix + "-" + RUN_ID + "-" + SEQUENCE.incrementAndGet() + "@gmail.com").toLowerCase(Locale.ROOT);
+    }
+
+    //Registers a throwaway account; it is deleted by tearDownAll() unless the caller deletes it first
+    public static PostLoginUserRequest createUser(String firstName) {
+        UserRequest userRequest = UserRequest.builder()
+                .firstName(firstName)
+                .lastName("Worker")
+                .email(uniqueEmail(firstName))
+                .password(PASSWORD)
+                .build();
+
+        Response response = ContactListClient.defaultClient().addUser(userRequest);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.SC_CREATED));
+
+        return deleteLater(userRequest);
+    }
+
+    public static PostLoginUserRequest deleteLater(UserRequest userRequest) {
+        PostLoginUserRequest loginUserRequest = PostLoginUserRequest.builder()
+                .email(userRequest.getEmail())
+                .password(userRequest.getPassword())
+                .build();
+        CREATED.add(loginUserRequest);
+        return loginUserRequest;
+    }
+
+    public static void tearDownAll() {
+        TokenProvider tokenProvider = TokenProvider.getInstance();
+        ContactListClient client = ContactListClient.defaultClient();
+        for (PostLoginUserRequest loginUserRequest : CREATED) {
+            try {
+                Response login = client.login(loginUserRequest);
+                if (login.getStatusCode() == HttpStatus.SC_OK) {
+                    client.deleteUser(Responses.as(login, LoginResponse.class).getToken());
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not delete " + loginUserRequest.getEmail(), e);
+            }
+            tokenProvider.invalidate(loginUserRequest);
+        }
+        CREATED.clear();
+        CURRENT.remove();
+    }
+
+    private static PostLoginUserRequest provision() {
+        PostLoginUserRequest loginUserRequest = NetworkCost.excluded(() -> createUser("worker"));
+        logger.info("Provisioned " + loginUserRequest.getEmail() + " for " + Thread.currentThread().getName());
+        return loginUserRequest;
+    }
+}
@@ -0,0 +1,12 @@
+package client;
+
+import io.restassured.specification.RequestSpecification;
+
+//Puts a token on an outgoing request; a null token means the endpoint is called anonymously
+@FunctionalInterface
+public interface AuthPolicy {
+    //Preemptive Authorization: Bearer, which is what BearerTokens and the cassette key read back
+    AuthPolicy BEARER = (request, token) -> token == null ? request : request.auth().oauth2(token);
+
+    RequestSpecification apply(RequestSpecification request, String token);
+}
@@ -0,0 +1,11 @@
+package client;
+
+/*
+ * Told about every call ContactListClient or AsyncContactListClient completes, including each
+ * retry. status is -1 when the call failed without a response; failure is null otherwise.
+ * Runs on the calling thread, or on the callback threads for the async client.
+ */
+@FunctionalInterface
+public interface CallListener {
+    void onCall(String method, String uri, int status, long elapsedNanos, Throwable failure);
+}
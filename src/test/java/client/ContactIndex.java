@@ -0,0 +1,149 @@
+package client;
+
+import io.restassured.response.Response;
+import model.Responses;
+import model.contact.ContactResponse;
+import model.contact.ContactStream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/*
+ * Filtered reads over the contacts of each account, keyed by token. The service has neither paging
+ * nor filter parameters, so the first lookup for a token streams GET contacts once and indexes every
+ * contact by id, country, city and email; after that a lookup is a hash lookup.
+ * Registered as the ResponseListener of a client, it applies that client's successful contact
+ * writes from their response bodies. Writes made through any other client need refresh(token).
+ */
+public class ContactIndex implements ResponseListener {
+    private final ContactListClient reader;
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+
+    //reader only lists contacts; it need not be the client this index listens to
+    public ContactIndex(ContactListClient reader) {
+        this.reader = reader;
+    }
+
+    public List<ContactResponse> byCountry(String token, String country) {
+        return loaded(token).find(Account.COUNTRY, country);
+    }
+
+    public List<ContactResponse> byCity(String token, String city) {
+        return loaded(token).find(Account.CITY, city);
+    }
+
+    public List<ContactResponse> byEmail(String token, String email) {
+        return loaded(token).find(Account.EMAIL, email);
+    }
+
+    public int size(String token) {
+        return loaded(token).size();
+    }
+
+    //Drops what is indexed for token; the next lookup downloads the list again
+    public void refresh(String token) {
+        accounts.remove(token);
+    }
+
+    @Override
+    public void onResponse(String method, String path, String token, Response response) {
+        if (token == null) {
+            return;
+        }
+        if ("DELETE".equals(method) && "users/me".equals(path) && response.getStatusCode() == 200) {
+            accounts.remove(token);
+            return;
+        }
+        Account account = accounts.get(token);
+        if (account == null || !path.startsWith("contacts")) {
+            return;
+        }
+        int status = response.getStatusCode();
+        if ("POST".equals(method) && status == 201
+                || ("PUT".equals(method) || "PATCH".equals(method)) && status == 200) {
+            account.put(Responses.as(response, ContactResponse.class));
+        } else if ("DELETE".equals(method) && status == 200 && path.startsWith("contacts/")) {
+            account.remove(path.substring("contacts/".length()));
+        }
+    }
+
+    private Account loaded(String token) {
+        Account account = accounts.computeIfAbsent(token, key -> new Account());
+        account.loadOnce(() -> reader.streamContacts(token, body -> ContactStream.forEach(body, contact -> {
+            account.put(contact);
+            return true;
+        })));
+        return account;
+    }
+
+    /*
+     * One account's contacts. Every operation replaces or removes by id, so a write that lands
+     * while the list is still being streamed is applied once the load releases the lock.
+     */
+    private static class Account {
+        static final Function<ContactResponse, String> COUNTRY = ContactResponse::getCountry;
+        static final Function<ContactResponse, String> CITY = ContactResponse::getCity;
+        static final Function<ContactResponse, String> EMAIL = ContactResponse::getEmail;
+        private static final List<Function<ContactResponse, String>> FIELDS = List.of(COUNTRY, CITY, EMAIL);
+
+        private final Map<String, ContactResponse> byId = new HashMap<>();
+        private final Map<Function<ContactResponse, String>, Map<String, Map<String, ContactResponse>>> byField = new HashMap<>();
+        private boolean loaded;
+
+        Account() {
+            for (Function<ContactResponse, String> field : FIELDS) {
+                byField.put(field, new HashMap<>());
+            }
+        }
+
+        synchronized void loadOnce(Runnable load) {
+            if (!loaded) {
+                load.run();
+                loaded = true;
+            }
+        }
+
+        synchronized void put(ContactResponse contact) {
+            remove(contact.getId());
+            byId.put(contact.getId(), contact);
+            for (Function<ContactResponse, String> field : FIELDS) {
+                String key = field.apply(contact);
+                if (key != null) {
+                    byField.get(field).computeIfAbsent(key, k -> new LinkedHashMap<>()).put(contact.getId(), contact);
+                }
+            }
+        }
+
+        synchronized void remove(String id) {
+            ContactResponse previous = byId.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (Function<ContactResponse, String> field : FIELDS) {
+                String key = field.apply(previous);
+                Map<String, ContactResponse> matches = key == null ? null : byField.get(field).get(key);
+                if (matches != null) {
+                    matches.remove(id);
+                    if (matches.isEmpty()) {
+                        byField.get(field).remove(key);
+                    }
+                }
+            }
+        }
+
+        synchronized List<ContactResponse> find(Function<ContactResponse, String> field, String key) {
+            Map<String, ContactResponse> matches = byField.get(field).get(key);
+            return matches == null ? Collections.emptyList() : new ArrayList<>(matches.values());
+        }
+
+        synchronized int size() {
+            return byId.size();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import http.AllureHttpFilter;
+import http.AsyncLoggingFilter;
+import http.PooledHttpClient;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import model.FrozenBody;
+import model.Responses;
+import model.contact.ContactRequest;
+import model.user.PostLoginUserRequest;
+import model.user.UserRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static io.restassured.RestAssured.given;
+
+/*
+ * Typed access to every users and contacts endpoint of the contact-list service.
+ * Calls go through the globally installed specification (base URI, pool, filter chain), so
+ * tests, load, seeding and benchmarks share one transport. Each client carries its own
+ * auth, retry and timeout policies and call listeners; toBuilder() derives variants.
+ * Methods return the raw Response because the suite asserts on error statuses as well.
+ */
+public class ContactListClient {
+    private static final ObjectWriter WRITER = Responses.MAPPER.writer();
+    private static final ContactListClient DEFAULT = builder().build();
+
+    private final AuthPolicy authPolicy;
+    private final RetryPolicy retryPolicy;
+    private final TimeoutPolicy timeoutPolicy;
+    private final List<CallListener> listeners;
+    private final List<ResponseListener> responseListeners;
+    private final List<Class<? extends Filter>> skippedFilters;
+    private final List<Filter> extraFilters;
+
+    private ContactListClient(Builder builder) {
+        this.authPolicy = builder.authPolicy;
+        this.retryPolicy = builder.retryPolicy;
+        this.timeoutPolicy = builder.timeoutPolicy;
+        this.listeners = new CopyOnWriteArrayList<>(builder.listeners);
+        this.responseListeners = new CopyOnWriteArrayList<>(builder.responseListeners);
+        this.skippedFilters = Collections.unmodifiableList(new ArrayList<>(builder.skippedFilters));
+        this.extraFilters = Collections.unmodifiableList(new ArrayList<>(builder.extraFilters));
+    }
+
+    //Bearer auth, no retries, pool timeouts
+    public static ContactListClient defaultClient() {
+        return DEFAULT;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Builder toBuilder() {
+        Builder builder = new Builder()
+                .authPolicy(authPolicy)
+                .retryPolicy(retryPolicy)
+                .timeoutPolicy(timeoutPolicy);
+        builder.listeners.addAll(listeners);
+        builder.responseListeners.addAll(responseListeners);
+        builder.skippedFilters.addAll(skippedFilters);
+        builder.extraFilters.addAll(extraFilters);
+        return builder;
+    }
+
+    public ContactListClient addListener(CallListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    public boolean removeListener(CallListener listener) {
+        return listeners.remove(listener);
+    }
+
+    public ContactListClient addResponseListener(ResponseListener listener) {
+        responseListeners.add(listener);
+        return this;
+    }
+
+    public boolean removeResponseListener(ResponseListener listener) {
+        return responseListeners.remove(listener);
+    }
+
+    /*Users*/
+    public Response addUser(UserRequest userRequest) {
+        return send("POST", "users", null, userRequest);
+    }
+
+    public Response addUser(FrozenBody userRequest) {
+        return send("POST", "users", null, userRequest);
+    }
+
+    public Response login(PostLoginUserRequest loginUserRequest) {
+        return send("POST", "users/login", null, loginUserRequest);
+    }
+
+    public Response getUser(String token) {
+        return send("GET", "users/me", token, null);
+    }
+
+    public Response updateUser(String token, UserRequest userRequest) {
+        return send("PATCH", "users/me", token, userRequest);
+    }
+
+    public Response updateUser(String token, FrozenBody userRequest) {
+        return send("PATCH", "users/me", token, userRequest);
+    }
+
+    public Response logout(String token) {
+        return send("POST", "users/logout", token, null);
+    }
+
+    public Response deleteUser(String token) {
+        return send("DELETE", "users/me", token, null);
+    }
+
+    /*Contacts*/
+    public Response addContact(String token, ContactRequest contactRequest) {
+        return send("POST", "contacts", token, contactRequest);
+    }
+
+    public Response addContact(String token, FrozenBody contactRequest) {
+        return send("POST", "contacts", token, contactRequest);
+    }
+
+    public Response listContacts(String token) {
+        return send("GET", "contacts", token, null);
+    }
+
+    /*
+     * Hands the unbuffered list body to reader and fails unless the service answers 200.
+     * Logging and Allure would read the whole body, so they are skipped for this call.
+     */
+    public <T> T streamContacts(String token, Function<InputStream, T> reader) {
+        return PooledHttpClient.streaming(() -> {
+            Response response = send("GET", "contacts", token, null, true);
+            try (InputStream body = response.asInputStream()) {
+                if (response.getStatusCode() != 200) {
+                    throw new IllegalStateException("GET contacts answered " + response.getStatusCode());
+                }
+                return reader.apply(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public Response getContact(String token, String idContact) {
+        return send("GET", "contacts/" + idContact, token, null);
+    }
+
+    public Response updateContact(String token, String idContact, ContactRequest contactRequest) {
+        return send("PUT", "contacts/" + idContact, token, contactRequest);
+    }
+
+    public Response updateContact(String token, String idContact, FrozenBody contactRequest) {
+        return send("PUT", "contacts/" + idContact, token, contactRequest);
+    }
+
+    public Response patchContact(String token, String idContact, ContactRequest contactRequest) {
+        return send("PATCH", "contacts/" + idContact, token, contactRequest);
+    }
+
+    public Response deleteContact(String token, String idContact) {
+        return send("DELETE", "contacts/" + idContact, token, null);
+    }
+
+    //body may be a model object, a FrozenBody or null; token null calls the endpoint anonymously
+    public Response send(String method, String path, String token, Object body) {
+        return send(method, path, token, body, false);
+    }
+
+    private Response send(String method, String path, String token, Object body, boolean streaming) {
+        for (int attempt = 0; ; attempt++) {
+            long start = System.nanoTime();
+            Response response = null;
+            RuntimeException failure = null;
+            try {
+                response = request(method, path, token, body, streaming).request(method, path);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            int status = response == null ? -1 : response.getStatusCode();
+            long elapsed = System.nanoTime() - start;
+            for (CallListener listener : listeners) {
+                listener.onCall(method, path, status, elapsed, failure);
+            }
+
+            if (!retryPolicy.shouldRetry(method, attempt, status, failure)) {
+                if (failure != null) {
+                    throw failure;
+                }
+                if (!streaming) {
+                    for (ResponseListener listener : responseListeners) {
+                        listener.onResponse(method, path, token, response);
+                    }
+                }
+                return response;
+            }
+            long backoff = retryPolicy.backoffMillis(attempt, response);
+            discard(response);
+            sleep(backoff);
+        }
+    }
+
+    private RequestSpecification request(String method, String path, String token, Object body, boolean streaming) {
+        RequestSpecification request = given();
+        for (Class<? extends Filter> filter : skippedFilters) {
+            request.noFiltersOfType(filter);
+        }
+        request.filters(extraFilters);
+        if (streaming) {
+            request.noFiltersOfType(AsyncLoggingFilter.class).noFiltersOfType(AllureHttpFilter.class);
+        }
+        Duration readTimeout = timeoutPolicy.readTimeout(method, path);
+        if (readTimeout != null) {
+            request.config(RestAssuredConfig.config()
+                    .httpClient(PooledHttpClient.httpClientConfig((int) readTimeout.toMillis())));
+        }
+        request = authPolicy.apply(request, token);
+        if (body instanceof FrozenBody) {
+            request.body(((FrozenBody) body).bytes());
+        } else if (body != null) {
+            //Shared writer instead of REST Assured's per-call mapper; a String body still reads well in Allure
+            request.body(json(body));
+        }
+        return request;
+    }
+
+    private static String json(Object body) {
+        try {
+            return WRITER.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Cannot serialize " + body.getClass().getSimpleName(), e);
+        }
+    }
+
+    //A streamed body nobody reads would keep its pooled connection
+    private static void discard(Response response) {
+        if (response != null) {
+            try {
+                response.asInputStream().close();
+            } catch (IOException ignored) {
+                //the connection is dropped instead of reused
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", e);
+        }
+    }
+
+    public static class Builder {
+        private AuthPolicy authPolicy = AuthPolicy.BEARER;
+        private RetryPolicy retryPolicy = RetryPolicy.NONE;
+        private TimeoutPolicy timeoutPolicy = TimeoutPolicy.POOL_DEFAULTS;
+        private final List<CallListener> listeners = new ArrayList<>();
+        private final List<ResponseListener> responseListeners = new ArrayList<>();
+        private final List<Class<? extends Filter>> skippedFilters = new ArrayList<>();
+        private final List<Filter> extraFilters = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder authPolicy(AuthPolicy authPolicy) {
+            this.authPolicy = authPolicy;
+            return this;
+        }
+
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        public Builder timeoutPolicy(TimeoutPolicy timeoutPolicy) {
+            this.timeoutPolicy = timeoutPolicy;
+            return this;
+        }
+
+        public Builder listener(CallListener listener) {
+            listeners.add(listener);
+            return this;
+        }
+
+        public Builder responseListener(ResponseListener listener) {
+            responseListeners.add(listener);
+            return this;
+        }
+
+        //Leaves filters of this type out of the global chain, e.g. Allure for bulk traffic
+        public Builder skipFilter(Class<? extends Filter> filterType) {
+            skippedFilters.add(filterType);
+            return this;
+        }
+
+        //Adds a filter to the global chain for this client's calls, e.g. a ResilienceFilter with its own limits
+        public Builder filter(Filter filter) {
+            extraFilters.add(filter);
+            return this;
+        }
+
+        public ContactListClient build() {
+            return new ContactListClient(this);
+        }
+    }
+}
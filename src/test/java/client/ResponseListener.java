@@ -0,0 +1,12 @@
+package client;
+
+import io.restassured.response.Response;
+
+/*
+ * Told about the final response of every ContactListClient call, after retries, with the token it
+ * was sent with. Streamed calls and calls that failed without a response are not reported.
+ */
+@FunctionalInterface
+public interface ResponseListener {
+    void onResponse(String method, String path, String token, Response response);
+}
@@ -0,0 +1,66 @@
+package client;
+
+import io.restassured.response.Response;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Decides whether a finished attempt is sent again. status is -1 and response null when the
+ * attempt failed without a response, and attempt counts from 0.
+ */
+public interface RetryPolicy {
+    RetryPolicy NONE = new RetryPolicy() {
+        @Override
+        public boolean shouldRetry(String method, int attempt, int status, Exception failure) {
+            return false;
+        }
+
+        @Override
+        public long backoffMillis(int attempt, Response response) {
+            return 0;
+        }
+    };
+
+    boolean shouldRetry(String method, int attempt, int status, Exception failure);
+
+    long backoffMillis(int attempt, Response response);
+
+    //GET, PUT and DELETE on 429, 5xx or a lost connection
+    static RetryPolicy idempotent(int maxRetries, long baseBackoffMillis) {
+        return new RetryPolicy() {
+            @Override
+            public boolean shouldRetry(String method, int attempt, int status, Exception failure) {
+                boolean idempotent = "GET".equals(method) || "PUT".equals(method) || "DELETE".equals(method);
+                return idempotent && isTransient(status, failure) && attempt < maxRetries;
+            }
+
+            @Override
+            public long backoffMillis(int attempt, Response response) {
+                return jitteredBackoff(baseBackoffMillis, attempt, response);
+            }
+        };
+    }
+
+    static boolean isTransient(int status, Exception failure) {
+        return failure != null || status == 429 || status >= 500;
+    }
+
+    //Exponential backoff with equal jitter, never shorter than a numeric Retry-After
+    static long jitteredBackoff(long baseBackoffMillis, int attempt, Response response) {
+        return jitteredBackoff(baseBackoffMillis, attempt, response == null ? null : response.getHeader("Retry-After"));
+    }
+
+    static long jitteredBackoff(long baseBackoffMillis, int attempt, String retryAfter) {
+        long exponential = baseBackoffMillis << Math.min(attempt, 10);
+        long jittered = exponential / 2 + ThreadLocalRandom.current().nextLong(exponential / 2 + 1);
+        if (retryAfter != null) {
+            try {
+                return Math.max(jittered, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())));
+            } catch (NumberFormatException ignored) {
+                //HTTP-date form, fall back to our own backoff
+            }
+        }
+        return jittered;
+    }
+}
@@ -0,0 +1,15 @@
+package client;
+
+import java.time.Duration;
+
+//Read timeout for one call; null keeps the pool's -Dthinking.http.readTimeoutMs
+@FunctionalInterface
+public interface TimeoutPolicy {
+    TimeoutPolicy POOL_DEFAULTS = (method, path) -> null;
+
+    Duration readTimeout(String method, String path);
+
+    static TimeoutPolicy fixed(Duration readTimeout) {
+        return (method, path) -> readTimeout;
+    }
+}
@@ -0,0 +1,90 @@
+package config;
+
+import auth.TokenInvalidationFilter;
+import auth.TokenProvider;
+import http.AllureHttpFilter;
+import http.AsyncLoggingFilter;
+import http.CassetteFilter;
+import http.ConditionalGetFilter;
+import http.PooledHttpClient;
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
+import io.restassured.http.ContentType;
+import io.restassured.specification.RequestSpecification;
+import metrics.AttemptLatencyFilter;
+import metrics.LatencyFilter;
+import metrics.LatencyRecorder;
+import metrics.NetworkCostFilter;
+import resilience.ResilienceFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * The request specification every suite installs globally: target base URI, pooled HTTP client,
+ * JSON content type and the shared filter chain. Kept out of BaseApi so code in named packages,
+ * such as the benchmarks, can build the same specification.
+ */
+public final class RequestSpecifications {
+    private static final CassetteFilter.Mode CASSETTE_MODE = CassetteFilter.Mode.fromProperty();
+    private static CassetteFilter cassetteFilter;
+
+    private RequestSpecifications() {
+    }
+
+    public static void install(Filter... extraFilters) {
+        //RequestSpecBuilder starts from the current global specification, which would duplicate every filter
+        RestAssured.requestSpecification = null;
+        RestAssured.requestSpecification = defaultSpecification(extraFilters);
+    }
+
+    public static RequestSpecification defaultSpecification(Filter... extraFilters) {
+        List<Filter> filters = new ArrayList<>(Arrays.asList(extraFilters));
+        AsyncLoggingFilter.Mode logMode = AsyncLoggingFilter.Mode.fromProperty();
+        if (logMode != AsyncLoggingFilter.Mode.OFF) {
+            filters.add(new AsyncLoggingFilter(logMode));
+        }
+        filters.add(new LatencyFilter(LatencyRecorder.endToEnd()));
+        AllureHttpFilter.Mode allureMode = AllureHttpFilter.Mode.fromProperty();
+        if (allureMode != AllureHttpFilter.Mode.OFF) {
+            filters.add(new AllureHttpFilter(allureMode));
+        }
+        filters.add(new TokenInvalidationFilter(TokenProvider.getInstance()));
+        filters.add(new NetworkCostFilter());
+        filters.add(new AttemptLatencyFilter(LatencyRecorder.getInstance()));
+        if (CASSETTE_MODE != CassetteFilter.Mode.OFF) {
+            filters.add(cassette());
+        } else {
+            //Cassettes key on method and path only, a recorded 304 would replay without its body
+            if (ConditionalGetFilter.enabledFromProperty()) {
+                filters.add(ConditionalGetFilter.shared());
+            }
+            //A replayed answer needs no retries, and a recording would keep every failed attempt
+            if (ResilienceFilter.enabledFromProperty()) {
+                filters.add(ResilienceFilter.shared());
+            }
+        }
+
+        return new RequestSpecBuilder().setBaseUri(ServiceTarget.baseUri())
+                .setConfig(RestAssuredConfig.config().httpClient(PooledHttpClient.httpClientConfig()))
+                .addFilters(filters)
+                .setContentType(ContentType.JSON).build();
+    }
+
+    //Writes the recorded cassette, if recording
+    public static synchronized void saveCassette() {
+        if (cassetteFilter != null) {
+            cassetteFilter.save();
+        }
+    }
+
+    private static synchronized CassetteFilter cassette() {
+        if (cassetteFilter == null) {
+            cassetteFilter = new CassetteFilter(CASSETTE_MODE, CassetteFilter.fileFromProperty());
+        }
+        return cassetteFilter;
+    }
+}
@@ -0,0 +1,28 @@
+package config;
+
+import fake.FakeContactListServer;
+
+import java.util.Locale;
+
+/*
+ * Which contact-list service the suite talks to.
+ * -Dthinking.target=live (default) uses the herokuapp deployment or -Dthinking.baseUri,
+ * -Dthinking.target=local starts the in-process FakeContactListServer.
+ */
+public final class ServiceTarget {
+    public static final String LIVE_BASE_URI = "https://thinking-tester-contact-list.herokuapp.com";
+
+    private ServiceTarget() {
+    }
+
+    public static boolean isLocal() {
+        return "local".equals(TestProperties.getString("thinking.target", "live").toLowerCase(Locale.ROOT));
+    }
+
+    public static String baseUri() {
+        if (isLocal()) {
+            return FakeContactListServer.shared().baseUri();
+        }
+        return TestProperties.getString("thinking.baseUri", LIVE_BASE_URI);
+    }
+}
@@ -0,0 +1,199 @@
+package data;
+
+import auth.WorkerUsers;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import config.TestProperties;
+import model.Responses;
+import model.contact.ContactRequest;
+import model.user.UserRequest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/*
+ * Deterministic test data: the same seed always yields the same sequence of users and contacts.
+ * Every value passes the service's validation, and emails embed the namespace and a sequence
+ * number so they never collide within a namespace. Instances are not thread-safe; give each
+ * thread its own via split().
+ */
+public class SyntheticData {
+    private static final String[] FIRST_NAMES = {"Luis", "Diego", "Ana", "Maria", "Jorge", "Lucia", "Carlos",
+            "Sofia", "Pedro", "Valeria", "Miguel", "Camila", "Andres", "Paula", "Hugo", "Elena"};
+    private static final String[] LAST_NAMES = {"Villa", "Cadima", "Rojas", "Flores", "Mendoza", "Vargas",
+            "Gutierrez", "Torres", "Romero", "Suarez", "Castro", "Ortiz", "Molina", "Quispe"};
+    private static final String[] STREETS = {"Main St.", "Oak Ave.", "Pine St.", "Maple Ave.", "Cedar Rd.",
+            "Elm St.", "Lake Dr.", "Hill Rd."};
+    //city, state or province, country
+    private static final String[][] PLACES = {
+            {"Anytown", "KS", "USA"}, {"Springfield", "IL", "USA"}, {"Austin", "TX", "USA"},
+            {"Toronto", "ON", "Canada"}, {"Cochabamba", "CBBA", "Bolivia"}, {"La Paz", "LP", "Bolivia"},
+            {"Madrid", "MD", "Spain"}, {"Lima", "LIM", "Peru"}};
+    private static final char[] PASSWORD_CHARS = "abcdefghijkmnpqrstuvwxyzABCDEFGHJKLMNPQRSTUVWXYZ23456789".toCharArray();
+
+    private final SplittableRandom random;
+    private final String namespace;
+    private final StringBuilder buffer = new StringBuilder(64);
+    private long sequence;
+    private int splits;
+
+    public SyntheticData(long seed, String namespace) {
+        this(new SplittableRandom(seed), namespace);
+    }
+
+    private SyntheticData(SplittableRandom random, String namespace) {
+        this.random = random;
+        this.namespace = namespace;
+    }
+
+    //Seeded by -Dthinking.data.seed; emails are scoped to the run id so live runs do not collide
+    public static SyntheticData fromProperties() {
+        return new SyntheticData(TestProperties.getLong("thinking.data.seed", 42), WorkerUsers.runId());
+    }
+
+    //Independent generator with its own random stream and email namespace
+    public synchronized SyntheticData split() {
+        return new SyntheticData(random.split(), namespace + "." + ++splits);
+    }
+
+    public ContactRequest nextContact() {
+        String firstName = pick(FIRST_NAMES);
+        String lastName = pick(LAST_NAMES);
+        String[] place = PLACES[random.nextInt(PLACES.length)];
+        return ContactRequest.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .birthdate(birthdate())
+                .email(email(firstName, lastName))
+                .phone(digits(8))
+                .street1(street())
+                .street2("Apt. " + (1 + random.nextInt(40)))
+                .city(place[0])
+                .stateProvince(place[1])
+                .postalCode(digits(5))
+                .country(place[2])
+                .build();
+    }
+
+    public UserRequest nextUser() {
+        String firstName = pick(FIRST_NAMES);
+        String lastName = pick(LAST_NAMES);
+        return UserRequest.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .email(email(firstName, lastName))
+                .password(password())
+                .build();
+    }
+
+    public Stream<ContactRequest> contacts(long count) {
+        return Stream.generate(this::nextContact).limit(count);
+    }
+
+    public Stream<UserRequest> users(long count) {
+        return Stream.generate(this::nextUser).limit(count);
+    }
+
+    //One JSON document per line, written as the stream is consumed
+    public static long writeJsonLines(Stream<?> records, Path file) {
+        long written = 0;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+                 SequenceWriter writer = Responses.MAPPER.writer().withRootValueSeparator("\n").writeValues(out)) {
+                Iterator<?> iterator = records.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                    written++;
+                }
+                writer.flush();
+                out.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + file, e);
+        }
+        return written;
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private String email(String firstName, String lastName) {
+        buffer.setLength(0);
+        appendLower(firstName);
+        buffer.append('.');
+        appendLower(lastName);
+        buffer.append('-').append(namespace).append('-').append(++sequence).append("@example.com");
+        return buffer.toString();
+    }
+
+    private void appendLower(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            buffer.append(Character.toLowerCase(value.charAt(i)));
+        }
+    }
+
+    //yyyy-MM-dd between 1940 and 2005, always a real calendar day
+    private String birthdate() {
+        int year = 1940 + random.nextInt(66);
+        int month = 1 + random.nextInt(12);
+        int day = 1 + random.nextInt(daysInMonth(year, month));
+        buffer.setLength(0);
+        buffer.append(year).append('-');
+        appendTwoDigits(month);
+        buffer.append('-');
+        appendTwoDigits(day);
+        return buffer.toString();
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private void appendTwoDigits(int value) {
+        buffer.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    private String digits(int length) {
+        buffer.setLength(0);
+        buffer.append((char) ('1' + random.nextInt(9)));
+        for (int i = 1; i < length; i++) {
+            buffer.append((char) ('0' + random.nextInt(10)));
+        }
+        return buffer.toString();
+    }
+
+    private String street() {
+        buffer.setLength(0);
+        buffer.append(1 + random.nextInt(9999)).append(' ').append(pick(STREETS));
+        return buffer.toString();
+    }
+
+    private String password() {
+        buffer.setLength(0);
+        for (int i = 0; i < 12; i++) {
+            buffer.append(PASSWORD_CHARS[random.nextInt(PASSWORD_CHARS.length)]);
+        }
+        return buffer.toString();
+    }
+}
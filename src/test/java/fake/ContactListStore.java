@@ -0,0 +1,445 @@
+package fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * In-memory model of the contact-list service. Status codes and error bodies follow the
+ * ones ThinkingTest asserts on for the herokuapp deployment.
+ */
+public class ContactListStore {
+    static final String PLEASE_AUTHENTICATE = "Please authenticate.";
+    private static final String[] USER_FIELDS = {"firstName", "lastName", "email", "password"};
+    private static final String[] CONTACT_FIELDS = {"firstName", "lastName", "birthdate", "email", "phone",
+            "street1", "street2", "city", "stateProvince", "postalCode", "country"};
+    private static final String NULL_STRING = "Expected a string but received a null";
+
+    private final ObjectMapper mapper;
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong idSequence = new AtomicLong();
+
+    private final ConcurrentMap<String, User> usersById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, User> usersByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, User> usersByToken = new ConcurrentHashMap<>();
+    //Object ids grow monotonically, so ordering by id keeps the insertion order of the real service
+    private final ConcurrentMap<String, ConcurrentSkipListMap<String, ObjectNode>> contactsByOwner = new ConcurrentHashMap<>();
+
+    public ContactListStore(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    //Users
+    public FakeResponse addUser(JsonNode body) {
+        String error = validateUser(body, true);
+        if (error != null) {
+            return message(400, "User validation failed: " + error);
+        }
+        User user = new User(nextId(), text(body, "firstName"), text(body, "lastName"),
+                text(body, "email").toLowerCase(Locale.ROOT), text(body, "password"));
+        //The contact list exists before anyone can log in as the user, and is looked up, never created, afterwards
+        contactsByOwner.put(user.id, new ConcurrentSkipListMap<>());
+        if (usersByEmail.putIfAbsent(user.email, user) != null) {
+            contactsByOwner.remove(user.id);
+            return message(400, "Email address is already in use");
+        }
+        usersById.put(user.id, user);
+
+        ObjectNode response = mapper.createObjectNode();
+        response.set("user", user.toJson());
+        response.put("token", issueToken(user));
+        return new FakeResponse(201, response);
+    }
+
+    public FakeResponse login(JsonNode body) {
+        String email = text(body, "email");
+        User user = email == null ? null : usersByEmail.get(email.toLowerCase(Locale.ROOT));
+        if (user == null || !user.password.equals(text(body, "password"))) {
+            return FakeResponse.of(401);
+        }
+        ObjectNode response = mapper.createObjectNode();
+        response.set("user", user.toJson());
+        response.put("token", issueToken(user));
+        return new FakeResponse(200, response);
+    }
+
+    public FakeResponse getUser(String token) {
+        User user = usersByToken.get(token);
+        return user == null ? unauthorized() : new FakeResponse(200, user.toJson());
+    }
+
+    public FakeResponse updateUser(String token, JsonNode body) {
+        User user = usersByToken.get(token);
+        if (user == null) {
+            return unauthorized();
+        }
+        String error = validateUser(body, false);
+        if (error != null) {
+            return message(400, "Validation failed: " + error);
+        }
+        synchronized (user) {
+            String email = text(body, "email");
+            if (email != null && !email.equalsIgnoreCase(user.email)) {
+                String normalized = email.toLowerCase(Locale.ROOT);
+                if (usersByEmail.putIfAbsent(normalized, user) != null) {
+                    return message(400, "Email address is already in use");
+                }
+                usersByEmail.remove(user.email, user);
+                user.email = normalized;
+            }
+            if (body.hasNonNull("firstName")) {
+                user.firstName = text(body, "firstName");
+            }
+            if (body.hasNonNull("lastName")) {
+                user.lastName = text(body, "lastName");
+            }
+            if (body.hasNonNull("password")) {
+                user.password = text(body, "password");
+            }
+            return new FakeResponse(200, user.toJson());
+        }
+    }
+
+    public FakeResponse logout(String token) {
+        User user = usersByToken.remove(token);
+        if (user == null) {
+            return unauthorized();
+        }
+        user.tokens.remove(token);
+        return FakeResponse.of(200);
+    }
+
+    public FakeResponse deleteUser(String token) {
+        User user = usersByToken.get(token);
+        if (user == null) {
+            return unauthorized();
+        }
+        usersById.remove(user.id);
+        usersByEmail.remove(user.email, user);
+        for (String userToken : new ArrayList<>(user.tokens)) {
+            usersByToken.remove(userToken);
+        }
+        contactsByOwner.remove(user.id);
+        return FakeResponse.of(200);
+    }
+
+    //Contacts
+    public FakeResponse addContact(String token, JsonNode body) {
+        User user = usersByToken.get(token);
+        if (user == null) {
+            return unauthorized();
+        }
+        String error = validateContact(body, true);
+        if (error != null) {
+            return message(400, "Contact validation failed: " + error);
+        }
+        ObjectNode contact = mapper.createObjectNode();
+        contact.put("_id", nextId());
+        copyContactFields(body, contact);
+        contact.put("owner", user.id);
+        contact.put("__v", 0);
+        ConcurrentSkipListMap<String, ObjectNode> contacts = contactsOf(user);
+        if (contacts == null) {
+            return unauthorized();
+        }
+        contacts.put(contact.get("_id").asText(), contact);
+        //Deleted while this contact was being added: the list it went into is gone with its owner
+        if (contactsOf(user) != contacts) {
+            return unauthorized();
+        }
+        return new FakeResponse(201, contact);
+    }
+
+    public FakeResponse listContacts(String token) {
+        User user = usersByToken.get(token);
+        if (user == null) {
+            return unauthorized();
+        }
+        ConcurrentSkipListMap<String, ObjectNode> owned = contactsOf(user);
+        if (owned == null) {
+            return unauthorized();
+        }
+        ArrayNode contacts = mapper.createArrayNode();
+        for (ObjectNode contact : owned.values()) {
+            synchronized (contact) {
+                contacts.add(contact.deepCopy());
+            }
+        }
+        return new FakeResponse(200, contacts);
+    }
+
+    public FakeResponse getContact(String token, String id) {
+        User user = usersByToken.get(token);
+        if (user == null) {
+            return unauthorized();
+        }
+        if (!isObjectId(id)) {
+            return invalidId(id);
+        }
+        ConcurrentSkipListMap<String, ObjectNode> contacts = contactsOf(user);
+        if (contacts == null) {
+            return unauthorized();
+        }
+        ObjectNode contact = contacts.get(id);
+        if (contact == null) {
+            return FakeResponse.of(404);
+        }
+        synchronized (contact) {
+            return new FakeResponse(200, contact.deepCopy());
+        }
+    }
+
+    public FakeResponse updateContact(String token, String id, JsonNode body) {
+        User user = usersByToken.get(token);
+        if (user == null) {
+            return unauthorized();
+        }
+        if (!isObjectId(id)) {
+            return invalidId(id);
+        }
+        ConcurrentSkipListMap<String, ObjectNode> contacts = contactsOf(user);
+        if (contacts == null) {
+            return unauthorized();
+        }
+        ObjectNode contact = contacts.get(id);
+        if (contact == null) {
+            return FakeResponse.of(404);
+        }
+        String error = validateContact(body, false);
+        if (error != null) {
+            return message(400, "Validation failed: " + error);
+        }
+        synchronized (contact) {
+            copyContactFields(body, contact);
+            return new FakeResponse(200, contact.deepCopy());
+        }
+    }
+
+    public FakeResponse deleteContact(String token, String id) {
+        User user = usersByToken.get(token);
+        if (user == null) {
+            return unauthorized();
+        }
+        if (!isObjectId(id)) {
+            return invalidId(id);
+        }
+        ConcurrentSkipListMap<String, ObjectNode> contacts = contactsOf(user);
+        if (contacts == null) {
+            return unauthorized();
+        }
+        if (contacts.remove(id) == null) {
+            return FakeResponse.of(404);
+        }
+        return new FakeResponse(200, mapper.getNodeFactory().textNode("Contact deleted"));
+    }
+
+    public int userCount() {
+        return usersById.size();
+    }
+
+    public void clear() {
+        usersById.clear();
+        usersByEmail.clear();
+        usersByToken.clear();
+        contactsByOwner.clear();
+    }
+
+    FakeResponse unauthorized() {
+        ObjectNode body = mapper.createObjectNode();
+        body.put("error", PLEASE_AUTHENTICATE);
+        return new FakeResponse(401, body);
+    }
+
+    private FakeResponse message(int status, String message) {
+        ObjectNode body = mapper.createObjectNode();
+        body.put("message", message);
+        return new FakeResponse(status, body);
+    }
+
+    private FakeResponse invalidId(String id) {
+        return message(400, "Cast to ObjectId failed for value \"" + id + "\" (type string) at path \"_id\" for model \"Contact\"");
+    }
+
+    //null once the user was deleted
+    private ConcurrentSkipListMap<String, ObjectNode> contactsOf(User user) {
+        return contactsByOwner.get(user.id);
+    }
+
+    private String issueToken(User user) {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        StringBuilder token = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            token.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        String value = token.toString();
+        user.tokens.add(value);
+        usersByToken.put(value, user);
+        return value;
+    }
+
+    //24 hex characters like a Mongo ObjectId: seconds since epoch followed by a sequence
+    private String nextId() {
+        long seconds = System.currentTimeMillis() / 1000;
+        return String.format("%08x%016x", seconds, idSequence.incrementAndGet());
+    }
+
+    private static boolean isObjectId(String id) {
+        if (id.length() != 24) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (Character.digit(id.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String validateUser(JsonNode body, boolean create) {
+        List<String> errors = new ArrayList<>();
+        for (String field : USER_FIELDS) {
+            String value = text(body, field);
+            boolean present = value != null && !value.isEmpty();
+            if ("email".equals(field)) {
+                if ((create || value != null) && !isEmail(value)) {
+                    errors.add("email: Email is invalid");
+                }
+            } else if (!present) {
+                if (create || value != null) {
+                    errors.add(field + ": Path `" + field + "` is required.");
+                }
+            } else if ("password".equals(field) && value.length() < 7) {
+                errors.add("password: Path `password` (`" + value + "`) is shorter than the minimum allowed length (7).");
+            }
+        }
+        return errors.isEmpty() ? null : String.join(", ", errors);
+    }
+
+    private String validateContact(JsonNode body, boolean create) {
+        List<String> errors = new ArrayList<>();
+        for (String field : new String[]{"firstName", "lastName"}) {
+            String value = text(body, field);
+            if ((create && (value == null || value.isEmpty())) || (!create && value != null && value.isEmpty())) {
+                errors.add(field + ": Path `" + field + "` is required.");
+            }
+        }
+        String birthdate = text(body, "birthdate");
+        if (birthdate != null && !isDate(birthdate)) {
+            errors.add("birthdate: Birthdate is invalid");
+        }
+        checkOptional(body, "email", "Email is invalid", errors);
+        checkOptional(body, "phone", "Phone number is invalid", errors);
+        checkOptional(body, "postalCode", "Postal code is invalid", errors);
+        return errors.isEmpty() ? null : String.join(", ", errors);
+    }
+
+    //The service turns "" into null before validating, which fails the string check
+    private void checkOptional(JsonNode body, String field, String invalidMessage, List<String> errors) {
+        String value = text(body, field);
+        if (value == null) {
+            return;
+        }
+        if (value.isEmpty()) {
+            errors.add(field + ": " + NULL_STRING);
+        } else if (!isValid(field, value)) {
+            errors.add(field + ": " + invalidMessage);
+        }
+    }
+
+    private static boolean isValid(String field, String value) {
+        switch (field) {
+            case "email":
+                return isEmail(value);
+            case "phone":
+                return value.length() <= 15 && allMatch(value, "0123456789+-() ");
+            default:
+                return value.length() <= 10 && allMatch(value, "0123456789-ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz ");
+        }
+    }
+
+    private static boolean allMatch(String value, String allowed) {
+        for (int i = 0; i < value.length(); i++) {
+            if (allowed.indexOf(value.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isEmail(String value) {
+        if (value == null) {
+            return false;
+        }
+        int at = value.indexOf('@');
+        int dot = value.lastIndexOf('.');
+        return at > 0 && at == value.lastIndexOf('@') && dot > at + 1 && dot < value.length() - 1
+                && value.indexOf(' ') < 0;
+    }
+
+    private static boolean isDate(String value) {
+        if (value.length() != 10 || (value.charAt(4) != '-' && value.charAt(4) != '/') || value.charAt(7) != value.charAt(4)) {
+            return false;
+        }
+        try {
+            LocalDate.of(Integer.parseInt(value.substring(0, 4)), Integer.parseInt(value.substring(5, 7)),
+                    Integer.parseInt(value.substring(8, 10)));
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void copyContactFields(JsonNode body, ObjectNode contact) {
+        for (String field : CONTACT_FIELDS) {
+            JsonNode value = body.get(field);
+            if (value != null && !value.isNull()) {
+                contact.put(field, value.asText());
+            }
+        }
+    }
+
+    private static String text(JsonNode body, String field) {
+        JsonNode value = body == null ? null : body.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private class User {
+        private final String id;
+        private final List<String> tokens = new CopyOnWriteArrayList<>();
+        private volatile String firstName;
+        private volatile String lastName;
+        private volatile String email;
+        private volatile String password;
+
+        User(String id, String firstName, String lastName, String email, String password) {
+            this.id = id;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+            this.password = password;
+        }
+
+        ObjectNode toJson() {
+            ObjectNode node = mapper.createObjectNode();
+            node.put("_id", id);
+            node.put("firstName", firstName);
+            node.put("lastName", lastName);
+            node.put("email", email);
+            node.put("__v", 1);
+            return node;
+        }
+    }
+}
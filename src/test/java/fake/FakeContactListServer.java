@@ -0,0 +1,238 @@
+package fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/*
+ * Embedded stand-in for thinking-tester-contact-list.herokuapp.com covering users, users/login,
+ * users/me, users/logout and contacts CRUD. Starts on a random loopback port in a few
+ * milliseconds and keeps everything in ContactListStore. failNext(...) injects error answers for
+ * one token, so a test can exercise retries without disturbing tests running next to it.
+ */
+public class FakeContactListServer {
+    private static final Logger logger = LogManager.getLogger(FakeContactListServer.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static FakeContactListServer shared;
+
+    private final ContactListStore store = new ContactListStore(MAPPER);
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ConcurrentMap<String, Fault> faults = new ConcurrentHashMap<>();
+
+    private FakeContactListServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    public static FakeContactListServer start() throws IOException {
+        AtomicInteger sequence = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-contact-list-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.setExecutor(executor);
+
+        FakeContactListServer fake = new FakeContactListServer(server, executor);
+        server.createContext("/", fake::handle);
+        server.start();
+        logger.info("Fake contact list service listening on " + fake.baseUri());
+        return fake;
+    }
+
+    //One server per JVM, shared by every test class that targets the local service
+    public static synchronized FakeContactListServer shared() {
+        if (shared == null) {
+            try {
+                shared = start();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not start the fake contact list service", e);
+            }
+        }
+        return shared;
+    }
+
+    public String baseUri() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public ContactListStore store() {
+        return store;
+    }
+
+    //The next `times` requests carrying token are answered with status instead of being served
+    public void failNext(String token, int status, int times) {
+        faults.put(token, new Fault(status, times));
+    }
+
+    public void clearFaults(String token) {
+        faults.remove(token);
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String[] segments = segments(exchange.getRequestURI().getPath());
+            JsonNode body = readBody(exchange);
+            String token = token(exchange);
+            Fault fault = faults.get(token);
+            write(exchange, fault != null && fault.take() ? FakeResponse.of(fault.status) : route(method, segments, token, body));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Fake contact list service failed", e);
+            write(exchange, FakeResponse.of(500));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private FakeResponse route(String method, String[] segments, String token, JsonNode body) {
+        if (segments.length == 0) {
+            return FakeResponse.of(404);
+        }
+        if ("users".equals(segments[0])) {
+            if (segments.length == 1 && "POST".equals(method)) {
+                return store.addUser(body);
+            }
+            if (segments.length == 2 && "login".equals(segments[1]) && "POST".equals(method)) {
+                return store.login(body);
+            }
+            if (segments.length == 2 && "logout".equals(segments[1]) && "POST".equals(method)) {
+                return store.logout(token);
+            }
+            if (segments.length == 2 && "me".equals(segments[1])) {
+                switch (method) {
+                    case "GET":
+                        return store.getUser(token);
+                    case "PATCH":
+                        return store.updateUser(token, body);
+                    case "DELETE":
+                        return store.deleteUser(token);
+                    default:
+                        return FakeResponse.of(404);
+                }
+            }
+        }
+        if ("contacts".equals(segments[0])) {
+            if (segments.length == 1) {
+                switch (method) {
+                    case "POST":
+                        return store.addContact(token, body);
+                    case "GET":
+                        return store.listContacts(token);
+                    case "DELETE":
+                        //The deployed service answers DELETE /contacts/ with 503
+                        return FakeResponse.of(503);
+                    default:
+                        return FakeResponse.of(404);
+                }
+            }
+            if (segments.length == 2) {
+                switch (method) {
+                    case "GET":
+                        return store.getContact(token, segments[1]);
+                    case "PUT":
+                    case "PATCH":
+                        return store.updateContact(token, segments[1], body);
+                    case "DELETE":
+                        return store.deleteContact(token, segments[1]);
+                    default:
+                        return FakeResponse.of(404);
+                }
+            }
+        }
+        return FakeResponse.of(404);
+    }
+
+    private static final class Fault {
+        private final int status;
+        private final AtomicInteger remaining;
+
+        Fault(int status, int times) {
+            this.status = status;
+            this.remaining = new AtomicInteger(times);
+        }
+
+        boolean take() {
+            return remaining.getAndUpdate(left -> Math.max(0, left - 1)) > 0;
+        }
+    }
+
+    private static String[] segments(String path) {
+        String trimmed = path;
+        while (trimmed.startsWith("/")) {
+            trimmed = trimmed.substring(1);
+        }
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("/+");
+    }
+
+    private static String token(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return "";
+        }
+        return authorization.substring("Bearer ".length()).trim();
+    }
+
+    private static JsonNode readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readAllBytes();
+            if (bytes.length == 0) {
+                return MAPPER.createObjectNode();
+            }
+            return MAPPER.readTree(bytes);
+        }
+    }
+
+    private static String etag(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return "W/\"" + Integer.toHexString(bytes.length) + "-" + Long.toHexString(crc.getValue()) + "\"";
+    }
+
+    private static void write(HttpExchange exchange, FakeResponse response) throws IOException {
+        if (response.getBody() == null) {
+            exchange.sendResponseHeaders(response.getStatus(), -1);
+            return;
+        }
+        byte[] bytes = MAPPER.writeValueAsBytes(response.getBody());
+        if ("GET".equals(exchange.getRequestMethod()) && response.getStatus() == 200) {
+            //Express tags every GET body with a weak ETag and answers a matching If-None-Match with 304
+            String etag = etag(bytes);
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.getStatus(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+//Status code plus optional JSON body produced by ContactListStore
+public class FakeResponse {
+    private final int status;
+    private final JsonNode body;
+
+    public FakeResponse(int status, JsonNode body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    public static FakeResponse of(int status) {
+        return new FakeResponse(status, null);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+}
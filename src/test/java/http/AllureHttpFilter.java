@@ -0,0 +1,192 @@
+package http;
+
+import config.TestProperties;
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.attachment.AttachmentContent;
+import io.qameta.allure.attachment.AttachmentData;
+import io.qameta.allure.attachment.FreemarkerAttachmentRenderer;
+import io.qameta.allure.attachment.http.HttpRequestAttachment;
+import io.qameta.allure.attachment.http.HttpResponseAttachment;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+ * Replaces AllureRestAssured, which renders and writes two files per call on the test thread.
+ * -Dthinking.allure=full|failed|sampled|off selects what is attached:
+ *   full     every exchange, as AllureRestAssured did
+ *   failed   the exchanges TestExchanges kept of a test that fails (-Dthinking.log.keptPerTest)
+ *   sampled  failed tests plus a thinking.allure.sampleRate share of all exchanges
+ * Test threads only register the attachment with Allure and queue the exchange; a single writer
+ * thread reads its bodies, renders the usual request/response templates and writes the files in batches.
+ * Exchanges outside a running Allure test (class setup, load workers) are never attached.
+ * Request bodies sent as bytes are shown as text instead of an array reference.
+ */
+public class AllureHttpFilter implements Filter {
+    private static final Logger logger = LogManager.getLogger(AllureHttpFilter.class);
+
+    private static final double SAMPLE_RATE = TestProperties.getDouble("thinking.allure.sampleRate", 0.01);
+    private static final int BATCH_SIZE = 256;
+    private static final FreemarkerAttachmentRenderer REQUEST_TEMPLATE = new FreemarkerAttachmentRenderer("http-request.ftl");
+    private static final FreemarkerAttachmentRenderer RESPONSE_TEMPLATE = new FreemarkerAttachmentRenderer("http-response.ftl");
+
+    private static final BlockingQueue<Pending> QUEUE = new ArrayBlockingQueue<>(TestProperties.getInt("thinking.allure.queueSize", 10_000));
+    private static final AtomicLong UNWRITTEN = new AtomicLong();
+    private static final LongAdder ATTACHED = new LongAdder();
+    private static final LongAdder SKIPPED = new LongAdder();
+
+    static {
+        Thread writer = new Thread(AllureHttpFilter::drain, "allure-attachment-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public enum Mode {
+        FULL, FAILED, SAMPLED, OFF;
+
+        public static Mode fromProperty() {
+            return valueOf(TestProperties.getString("thinking.allure", "full").toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Mode mode;
+
+    public AllureHttpFilter(Mode mode) {
+        this.mode = mode;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec, FilterContext ctx) {
+        long start = System.nanoTime();
+        Response response = ctx.next(requestSpec, responseSpec);
+        if (!Allure.getLifecycle().getCurrentTestCase().isPresent()) {
+            return response;
+        }
+        HttpExchange exchange = TestExchanges.capture(requestSpec, response, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (mode == Mode.FULL || mode == Mode.SAMPLED && ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE) {
+            attach(exchange);
+        } else {
+            SKIPPED.increment();
+        }
+        return response;
+    }
+
+    //Attaches what was kept of the failed test; it runs before Allure closes the test result
+    public static void attachFailedTest() {
+        if (Mode.fromProperty() == Mode.OFF || !Allure.getLifecycle().getCurrentTestCase().isPresent()) {
+            return;
+        }
+        for (HttpExchange exchange : TestExchanges.currentTest()) {
+            if (!exchange.isAttached()) {
+                SKIPPED.decrement();
+                attach(exchange);
+            }
+        }
+    }
+
+    //Waits for queued attachments to reach allure-results; call before the JVM exits
+    public static void flush(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (UNWRITTEN.get() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        logger.info("Allure HTTP attachments: " + ATTACHED.sum() + " exchanges attached, " + SKIPPED.sum()
+                + " not attached" + (UNWRITTEN.get() > 0 ? ", " + UNWRITTEN.get() + " still unwritten" : ""));
+    }
+
+    private static void enqueue(Pending pending) {
+        UNWRITTEN.incrementAndGet();
+        //A full queue slows the test down rather than losing an attachment Allure already lists
+        if (!QUEUE.offer(pending)) {
+            pending.write();
+        }
+    }
+
+    private static void drain() {
+        List<Pending> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (true) {
+                batch.add(QUEUE.take());
+                QUEUE.drainTo(batch, BATCH_SIZE - 1);
+                for (Pending pending : batch) {
+                    pending.write();
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Reading and rendering wait for the writer; the test thread only registers the two attachments
+    private static void attach(HttpExchange exchange) {
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        enqueue(new Pending(lifecycle.prepareAttachment("Request", "text/html", ".html"), () -> request(exchange), REQUEST_TEMPLATE));
+        enqueue(new Pending(lifecycle.prepareAttachment(exchange.statusLine(), "text/html", ".html"), () -> response(exchange), RESPONSE_TEMPLATE));
+        exchange.markAttached();
+        ATTACHED.increment();
+    }
+
+    private static AttachmentData request(HttpExchange exchange) {
+        String body = exchange.requestBody();
+        return HttpRequestAttachment.Builder.create("Request", exchange.uri())
+                .setMethod(exchange.method())
+                .setHeaders(exchange.requestHeaders())
+                .setBody(body.isEmpty() ? null : body)
+                .build();
+    }
+
+    private static AttachmentData response(HttpExchange exchange) {
+        return HttpResponseAttachment.Builder.create(exchange.statusLine())
+                .setResponseCode(exchange.status())
+                .setHeaders(exchange.responseHeaders())
+                .setBody(exchange.responseBody())
+                .build();
+    }
+
+    private static class Pending {
+        private final String source;
+        private final Supplier<AttachmentData> data;
+        private final FreemarkerAttachmentRenderer renderer;
+
+        Pending(String source, Supplier<AttachmentData> data, FreemarkerAttachmentRenderer renderer) {
+            this.source = source;
+            this.data = data;
+            this.renderer = renderer;
+        }
+
+        void write() {
+            try {
+                AttachmentContent content = renderer.render(data.get());
+                Allure.getLifecycle().writeAttachment(source, new ByteArrayInputStream(content.getContent().getBytes(StandardCharsets.UTF_8)));
+            } catch (RuntimeException e) {
+                logger.warn("Could not write Allure attachment " + source, e);
+            } finally {
+                UNWRITTEN.decrementAndGet();
+            }
+        }
+    }
+}
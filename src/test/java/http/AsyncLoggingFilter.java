@@ -0,0 +1,122 @@
+package http;
+
+import config.TestProperties;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Replaces the synchronous RequestLoggingFilter/ResponseLoggingFilter pair.
+ * Test threads only hand the captured exchange to a bounded queue; a single background appender
+ * reads, truncates and writes it. When the queue is full the exchange is dropped and counted.
+ * The last exchanges of the running test are kept with full bodies in TestExchanges and
+ * written out only when the test fails (see FailedTestLogging).
+ *
+ * -Dthinking.log=on|errors|off selects the mode, -Dthinking.log.maxBody the truncation size.
+ */
+public class AsyncLoggingFilter implements Filter {
+    private static final Logger logger = LogManager.getLogger(AsyncLoggingFilter.class);
+
+    private static final int MAX_BODY = TestProperties.getInt("thinking.log.maxBody", 2048);
+    private static final int QUEUE_SIZE = TestProperties.getInt("thinking.log.queueSize", 10_000);
+
+    private static final BlockingQueue<HttpExchange> QUEUE = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final AtomicLong UNWRITTEN = new AtomicLong();
+
+    static {
+        Thread appender = new Thread(AsyncLoggingFilter::drain, "http-log-appender");
+        appender.setDaemon(true);
+        appender.start();
+    }
+
+    public enum Mode {
+        ON, ERRORS, OFF;
+
+        public static Mode fromProperty() {
+            return valueOf(TestProperties.getString("thinking.log", "on").toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Mode mode;
+
+    public AsyncLoggingFilter(Mode mode) {
+        this.mode = mode;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec, FilterContext ctx) {
+        long start = System.nanoTime();
+        Response response = ctx.next(requestSpec, responseSpec);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        HttpExchange exchange = TestExchanges.capture(requestSpec, response, elapsedMs);
+
+        if (mode == Mode.ON || (mode == Mode.ERRORS && exchange.status() >= 400)) {
+            UNWRITTEN.incrementAndGet();
+            if (!QUEUE.offer(exchange)) {
+                UNWRITTEN.decrementAndGet();
+                DROPPED.incrementAndGet();
+            }
+        }
+        return response;
+    }
+
+    //Writes the exchanges of the failed test with untruncated bodies
+    public static void logFailedTest(String testName) {
+        if (Mode.fromProperty() == Mode.OFF) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder("HTTP exchanges of failed test ").append(testName);
+        for (HttpExchange exchange : TestExchanges.currentTest()) {
+            builder.append(System.lineSeparator()).append(exchange.format(Integer.MAX_VALUE));
+        }
+        logger.error(builder.toString());
+    }
+
+    public static long droppedEvents() {
+        return DROPPED.get();
+    }
+
+    //Waits for the appender to write every queued line and reports the dropped ones; call before the JVM exits
+    public static void flush(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (UNWRITTEN.get() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        logger.info("HTTP log: " + DROPPED.get() + " lines dropped on a full queue"
+                + (UNWRITTEN.get() > 0 ? ", " + UNWRITTEN.get() + " still unwritten" : ""));
+    }
+
+    private static void drain() {
+        try {
+            while (true) {
+                HttpExchange exchange = QUEUE.take();
+                try {
+                    logger.info(exchange.format(MAX_BODY));
+                } catch (RuntimeException e) {
+                    logger.warn("Could not log " + exchange.method() + " " + exchange.uri(), e);
+                } finally {
+                    UNWRITTEN.decrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package http;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Recorded HTTP responses in a single indexed file that is memory-mapped for replay.
+ *
+ * Layout (big endian):
+ *   int magic "TCAS", int version, int slotCount (power of two), int entryCount
+ *   slotCount x (long keyHash, long entryOffset)    open-addressing index, offset 0 = empty slot
+ *   entries: int keyLength, key, int status, int headersLength, headers, int bodyLength, body
+ *
+ * A lookup hashes the key, probes the index and reads only the matching entry, so replay
+ * cost does not depend on the size of the cassette.
+ */
+public final class Cassette {
+    private static final int MAGIC = 0x54434153;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+
+    private Cassette(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a version " + VERSION + " cassette");
+        }
+        this.slotCount = buffer.getInt(8);
+    }
+
+    public static Cassette open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new Cassette(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int size() {
+        return buffer.getInt(12);
+    }
+
+    public Entry find(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(keyBytes);
+        int mask = slotCount - 1;
+        for (int probe = 0; probe < slotCount; probe++) {
+            int slot = (int) ((hash + probe) & mask);
+            int slotPosition = HEADER_BYTES + slot * SLOT_BYTES;
+            long offset = buffer.getLong(slotPosition + 8);
+            if (offset == 0) {
+                return null;
+            }
+            if (buffer.getLong(slotPosition) == hash && keyMatches((int) offset, keyBytes)) {
+                return readEntry((int) offset + 4 + keyBytes.length, key);
+            }
+        }
+        return null;
+    }
+
+    public static void write(Path file, Collection<Entry> entries) throws IOException {
+        int slotCount = Integer.highestOneBit(Math.max(2, entries.size() * 2 - 1)) << 1;
+        long[] slotHashes = new long[slotCount];
+        long[] slotOffsets = new long[slotCount];
+
+        List<byte[]> encoded = new ArrayList<>(entries.size());
+        long offset = HEADER_BYTES + (long) slotCount * SLOT_BYTES;
+        for (Entry entry : entries) {
+            byte[] bytes = entry.encode();
+            byte[] keyBytes = entry.key.getBytes(StandardCharsets.UTF_8);
+            long hash = hash(keyBytes);
+            int slot = (int) (hash & (slotCount - 1));
+            while (slotOffsets[slot] != 0) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            slotHashes[slot] = hash;
+            slotOffsets[slot] = offset;
+            encoded.add(bytes);
+            offset += bytes.length;
+        }
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (OutputStream fileOut = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(slotCount);
+            out.writeInt(entries.size());
+            for (int slot = 0; slot < slotCount; slot++) {
+                out.writeLong(slotHashes[slot]);
+                out.writeLong(slotOffsets[slot]);
+            }
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private boolean keyMatches(int offset, byte[] keyBytes) {
+        if (buffer.getInt(offset) != keyBytes.length) {
+            return false;
+        }
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (buffer.get(offset + 4 + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Entry readEntry(int position, String key) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        int status = view.getInt();
+        byte[] headers = new byte[view.getInt()];
+        view.get(headers);
+        byte[] body = new byte[view.getInt()];
+        view.get(body);
+        return new Entry(key, status, new String(headers, StandardCharsets.UTF_8), body);
+    }
+
+    //64-bit FNV-1a
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public static final class Entry {
+        private final String key;
+        private final int status;
+        private final String headers;
+        private final byte[] body;
+
+        public Entry(String key, int status, String headers, byte[] body) {
+            this.key = key;
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        //"Name: value" lines
+        public String getHeaders() {
+            return headers;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        private byte[] encode() {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            byte[] headerBytes = headers.getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(16 + keyBytes.length + headerBytes.length + body.length)
+                    .putInt(keyBytes.length).put(keyBytes)
+                    .putInt(status)
+                    .putInt(headerBytes.length).put(headerBytes)
+                    .putInt(body.length).put(body)
+                    .array();
+        }
+    }
+}
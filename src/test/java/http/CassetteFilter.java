@@ -0,0 +1,201 @@
+package http;
+
+import auth.BearerTokens;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import config.TestProperties;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import runner.CurrentTest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Records live exchanges into a Cassette and serves them back without any network.
+ * -Dthinking.cassette=record|replay|off. Cassettes go to build/cassettes/thinking.cassette, so a
+ * recording never overwrites a checked-in one; point -Dthinking.cassette.file at it to replay it.
+ *
+ * Bodies are not part of the key, because they carry generated emails. The key is the test
+ * name, the method, the path with object ids replaced by {id}, and how the request
+ * authenticates (no token, a token the service handed out, or anything else), plus the
+ * ordinal of that request within the test. Tokens and ids in the replayed responses are the
+ * recorded ones, so whatever ThinkingTest extracts from them maps back onto the same keys.
+ * When a test-scoped key is missing (e.g. a worker user provisioned by another test) the last
+ * recorded exchange of the same shape is used.
+ */
+public class CassetteFilter implements OrderedFilter {
+    private static final Logger logger = LogManager.getLogger(CassetteFilter.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public enum Mode {
+        OFF, RECORD, REPLAY;
+
+        public static Mode fromProperty() {
+            return valueOf(TestProperties.getString("thinking.cassette", "off").toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Mode mode;
+    private final Path file;
+    private final Cassette cassette;
+    private final Map<String, Cassette.Entry> recorded = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> ordinals = new ConcurrentHashMap<>();
+    private final Set<String> knownTokens = ConcurrentHashMap.newKeySet();
+
+    public CassetteFilter(Mode mode, Path file) {
+        this.mode = mode;
+        this.file = file;
+        try {
+            this.cassette = mode == Mode.REPLAY ? Cassette.open(file) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open cassette " + file + ", record it first with -Dthinking.cassette=record", e);
+        }
+        if (cassette != null) {
+            logger.info("Replaying " + cassette.size() + " exchanges from " + file);
+        }
+    }
+
+    public static Path fileFromProperty() {
+        return Paths.get(TestProperties.getString("thinking.cassette.file", "build/cassettes/thinking.cassette"));
+    }
+
+    //Runs after every other filter so that records hold exactly what came off the wire
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec, FilterContext ctx) {
+        String shape = shape(requestSpec);
+        String testKey = CurrentTest.name() + " | " + shape;
+        String key = testKey + " #" + ordinals.computeIfAbsent(testKey, k -> new AtomicInteger()).getAndIncrement();
+
+        if (mode == Mode.REPLAY) {
+            Cassette.Entry entry = cassette.find(key);
+            if (entry == null) {
+                entry = cassette.find(shape);
+            }
+            if (entry == null) {
+                throw new AssertionError("No recorded exchange for " + key + " in " + file);
+            }
+            rememberToken(entry.getBody());
+            return toResponse(entry);
+        }
+
+        Response response = ctx.next(requestSpec, responseSpec);
+        byte[] body = response.asByteArray();
+        StringBuilder headers = new StringBuilder();
+        for (Header header : response.getHeaders()) {
+            headers.append(header.getName()).append(": ").append(header.getValue()).append('\n');
+        }
+        Cassette.Entry entry = new Cassette.Entry(key, response.getStatusCode(), headers.toString(), body);
+        recorded.put(key, entry);
+        recorded.put(shape, new Cassette.Entry(shape, entry.getStatus(), entry.getHeaders(), body));
+        rememberToken(body);
+        return response;
+    }
+
+    public void save() {
+        if (mode != Mode.RECORD || recorded.isEmpty()) {
+            return;
+        }
+        try {
+            Cassette.write(file, recorded.values());
+            logger.info("Recorded " + recorded.size() + " exchanges to " + file.toAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write cassette " + file, e);
+        }
+    }
+
+    private String shape(FilterableRequestSpecification requestSpec) {
+        String token = BearerTokens.of(requestSpec);
+        String auth;
+        if (token == null || token.isEmpty()) {
+            auth = "none";
+        } else {
+            auth = knownTokens.contains(token) ? "known" : "unknown";
+        }
+        return requestSpec.getMethod() + " " + templatePath(requestSpec.getURI()) + " auth=" + auth;
+    }
+
+    private void rememberToken(byte[] body) {
+        if (body.length == 0 || body[0] != '{') {
+            return;
+        }
+        try {
+            JsonNode token = MAPPER.readTree(body).get("token");
+            if (token != null && token.isTextual()) {
+                knownTokens.add(token.asText());
+            }
+        } catch (IOException e) {
+            logger.debug("Response body is not JSON", e);
+        }
+    }
+
+    //Path without host and query, 24-hex object ids replaced by {id} and everything else kept verbatim
+    private static String templatePath(String uri) {
+        int schemeEnd = uri.indexOf("://");
+        int start = schemeEnd < 0 ? 0 : uri.indexOf('/', schemeEnd + 3);
+        if (start < 0) {
+            return "/";
+        }
+        int end = uri.indexOf('?', start);
+        String path = uri.substring(start, end < 0 ? uri.length() : end);
+        String[] segments = path.split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            if (isObjectId(segments[i])) {
+                segments[i] = "{id}";
+            }
+        }
+        return String.join("/", segments);
+    }
+
+    private static boolean isObjectId(String segment) {
+        if (segment.length() != 24) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (Character.digit(segment.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Response toResponse(Cassette.Entry entry) {
+        ResponseBuilder builder = new ResponseBuilder()
+                .setStatusCode(entry.getStatus())
+                .setStatusLine("HTTP/1.1 " + entry.getStatus())
+                .setBody(entry.getBody());
+        for (String line : entry.getHeaders().split("\n")) {
+            int colon = line.indexOf(": ");
+            if (colon > 0) {
+                String name = line.substring(0, colon);
+                String value = line.substring(colon + 2);
+                if ("Content-Type".equalsIgnoreCase(name)) {
+                    builder.setContentType(value);
+                } else {
+                    builder.setHeader(name, value);
+                }
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,200 @@
+package http;
+
+import auth.BearerTokens;
+import config.TestProperties;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.apache.http.HttpStatus;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Revalidating cache for GET responses, keyed by bearer token and path. A stored response is sent
+ * back to the caller when the service answers the conditional GET (If-None-Match, If-Modified-Since)
+ * with 304, so an unchanged body crosses the wire once instead of on every call. Every request still
+ * reaches the service, which keeps authentication and freshness its decision; writes to a path drop
+ * that path, its parents and its children for the same token before they are sent.
+ * Entries are evicted least recently used beyond maxEntries and once they are older than the TTL.
+ * -Dthinking.cache=true|false, -Dthinking.cache.maxEntries, -Dthinking.cache.ttlMs
+ */
+public class ConditionalGetFilter implements OrderedFilter {
+    private static final Logger logger = LogManager.getLogger(ConditionalGetFilter.class);
+    private static final ConditionalGetFilter SHARED = new ConditionalGetFilter(
+            TestProperties.getInt("thinking.cache.maxEntries", 512),
+            TestProperties.getLong("thinking.cache.ttlMs", 60_000));
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    public ConditionalGetFilter(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public static ConditionalGetFilter shared() {
+        return SHARED;
+    }
+
+    public static boolean enabledFromProperty() {
+        return TestProperties.getBoolean("thinking.cache", true);
+    }
+
+    //Inside logging, latency and Allure, which see the 200 the caller gets, outside cost accounting and retries
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 4;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec, FilterContext ctx) {
+        String method = requestSpec.getMethod();
+        String token = BearerTokens.of(requestSpec);
+        String path = Endpoints.path(requestSpec.getURI());
+        if (!"GET".equals(method)) {
+            if (!"HEAD".equals(method) && !"OPTIONS".equals(method)) {
+                invalidate(token, path);
+            }
+            return ctx.next(requestSpec, responseSpec);
+        }
+        //Storing a streamed body would read it before the caller does; a caller's own validators win
+        if (PooledHttpClient.isStreaming()
+                || requestSpec.getHeaders().hasHeaderWithName("If-None-Match")
+                || requestSpec.getHeaders().hasHeaderWithName("If-Modified-Since")) {
+            return ctx.next(requestSpec, responseSpec);
+        }
+
+        String key = token + " " + path;
+        Entry cached = lookup(key);
+        if (cached != null) {
+            if (cached.etag != null) {
+                requestSpec.header("If-None-Match", cached.etag);
+            }
+            if (cached.lastModified != null) {
+                requestSpec.header("If-Modified-Since", cached.lastModified);
+            }
+        }
+        Response response = ctx.next(requestSpec, responseSpec);
+        int status = response.getStatusCode();
+        if (status == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+            hits.increment();
+            savedBytes.add(cached.body.length);
+            return cached.toResponse();
+        }
+
+        misses.increment();
+        String etag = response.getHeader("ETag");
+        String lastModified = response.getHeader("Last-Modified");
+        if (status == HttpStatus.SC_OK && (etag != null || lastModified != null)) {
+            store(key, new Entry(token, path, etag, lastModified, response));
+        } else {
+            remove(key);
+        }
+        return response;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public void logStats() {
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+        logger.info(String.format("HTTP cache hits=%d, misses=%d, bytes not transferred=%d, entries=%d",
+                hits(), misses(), savedBytes.sum(), size));
+    }
+
+    private synchronized Entry lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.storedAt > ttlNanos) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void store(String key, Entry entry) {
+        entries.put(key, entry);
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    //contacts/61 also stales contacts, and users/me stales anything below it
+    private synchronized void invalidate(String token, String path) {
+        String written = withoutQuery(path);
+        entries.values().removeIf(entry -> {
+            if (entry.token == null ? token != null : !entry.token.equals(token)) {
+                return false;
+            }
+            String cached = withoutQuery(entry.path);
+            return cached.equals(written) || written.startsWith(cached + "/") || cached.startsWith(written + "/");
+        });
+    }
+
+    private static String withoutQuery(String path) {
+        int query = path.indexOf('?');
+        return query < 0 ? path : path.substring(0, query);
+    }
+
+    private static class Entry {
+        private final String token;
+        private final String path;
+        private final String etag;
+        private final String lastModified;
+        private final String contentType;
+        private final Headers headers;
+        private final byte[] body;
+        private final long storedAt = System.nanoTime();
+
+        Entry(String token, String path, String etag, String lastModified, Response response) {
+            this.token = token;
+            this.path = path;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentType = response.getContentType();
+            this.headers = response.getHeaders();
+            this.body = response.asByteArray();
+        }
+
+        Response toResponse() {
+            return new ResponseBuilder()
+                    .setStatusCode(HttpStatus.SC_OK)
+                    .setStatusLine("HTTP/1.1 200 OK")
+                    .setHeaders(headers)
+                    .setContentType(contentType)
+                    .setBody(body)
+                    .build();
+        }
+    }
+}
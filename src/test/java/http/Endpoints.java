@@ -0,0 +1,80 @@
+package http;
+
+//Collapses request URIs into endpoint buckets, e.g. https://host/contacts/6151c1...?x=1 -> contacts/{id}
+public final class Endpoints {
+
+    private Endpoints() {
+    }
+
+    public static String key(String method, String uri) {
+        return method + " " + normalize(uri);
+    }
+
+    //Path without scheme, host and surrounding slashes, ids and query kept: https://host/contacts/61?x=1 -> contacts/61?x=1
+    public static String path(String uri) {
+        int start = 0;
+        int schemeEnd = uri.indexOf("://");
+        if (schemeEnd >= 0) {
+            int pathStart = uri.indexOf('/', schemeEnd + 3);
+            start = pathStart < 0 ? uri.length() : pathStart;
+        }
+        int end = uri.indexOf('?', start);
+        if (end < 0) {
+            end = uri.length();
+        }
+        while (start < end && uri.charAt(start) == '/') {
+            start++;
+        }
+        int pathEnd = end;
+        while (pathEnd > start && uri.charAt(pathEnd - 1) == '/') {
+            pathEnd--;
+        }
+        return uri.substring(start, pathEnd) + uri.substring(end);
+    }
+
+    public static String normalize(String uri) {
+        int start = 0;
+        int schemeEnd = uri.indexOf("://");
+        if (schemeEnd >= 0) {
+            int pathStart = uri.indexOf('/', schemeEnd + 3);
+            start = pathStart < 0 ? uri.length() : pathStart;
+        }
+        int end = uri.indexOf('?', start);
+        if (end < 0) {
+            end = uri.length();
+        }
+
+        StringBuilder builder = new StringBuilder(end - start + 8);
+        String previous = null;
+        int segmentStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || uri.charAt(i) == '/') {
+                if (i > segmentStart) {
+                    String segment = uri.substring(segmentStart, i);
+                    if (builder.length() > 0) {
+                        builder.append('/');
+                    }
+                    builder.append(isIdentifier(previous, segment) ? "{id}" : segment);
+                    previous = segment;
+                }
+                segmentStart = i + 1;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isIdentifier(String previous, String segment) {
+        if ("contacts".equals(previous)) {
+            return true;
+        }
+        if (segment.length() < 12) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (Character.digit(segment.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
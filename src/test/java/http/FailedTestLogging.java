@@ -0,0 +1,24 @@
+package http;
+
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+//Scopes TestExchanges to each test and hands the exchanges of a failed one to the log and to Allure
+public class FailedTestLogging extends TestWatcher {
+
+    @Override
+    protected void starting(Description description) {
+        TestExchanges.startTest();
+    }
+
+    @Override
+    protected void failed(Throwable e, Description description) {
+        AsyncLoggingFilter.logFailedTest(description.getDisplayName());
+        AllureHttpFilter.attachFailedTest();
+    }
+
+    @Override
+    protected void finished(Description description) {
+        TestExchanges.finishTest();
+    }
+}
@@ -0,0 +1,134 @@
+package http;
+
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * One request and its response, captured once per call for the log and for Allure. Capturing only
+ * keeps references; headers and bodies are turned into text when the exchange is logged or attached,
+ * on the appender or writer thread, or on the test thread when that test fails.
+ */
+final class HttpExchange {
+    private final String method;
+    private final String uri;
+    private final Headers requestHeaders;
+    private final Object requestBodySource;
+    private final Response response;
+    private final boolean streamed;
+    private final int status;
+    private final long elapsedMs;
+    private volatile String requestBody;
+    private volatile String responseBody;
+    //Set by AllureHttpFilter, so a failed test does not attach the exchange a second time
+    private boolean attached;
+
+    HttpExchange(FilterableRequestSpecification requestSpec, Response response, long elapsedMs) {
+        this.method = requestSpec.getMethod();
+        this.uri = requestSpec.getURI();
+        this.requestHeaders = requestSpec.getHeaders();
+        this.requestBodySource = requestSpec.getBody();
+        this.response = response;
+        this.streamed = PooledHttpClient.isStreaming();
+        this.status = response.getStatusCode();
+        this.elapsedMs = elapsedMs;
+    }
+
+    String method() {
+        return method;
+    }
+
+    String uri() {
+        return uri;
+    }
+
+    Map<String, String> requestHeaders() {
+        return toMap(requestHeaders);
+    }
+
+    String requestBody() {
+        String body = requestBody;
+        if (body == null) {
+            body = bodyOf(requestBodySource);
+            requestBody = body;
+        }
+        return body;
+    }
+
+    int status() {
+        return status;
+    }
+
+    String statusLine() {
+        return response.getStatusLine();
+    }
+
+    Map<String, String> responseHeaders() {
+        return toMap(response.getHeaders());
+    }
+
+    String responseBody() {
+        String body = responseBody;
+        if (body == null) {
+            body = streamed ? "(streamed body)" : response.asString();
+            responseBody = body;
+        }
+        return body;
+    }
+
+    boolean isAttached() {
+        return attached;
+    }
+
+    void markAttached() {
+        attached = true;
+    }
+
+    String format(int maxBody) {
+        StringBuilder builder = new StringBuilder(128)
+                .append(method).append(' ').append(uri)
+                .append(" -> ").append(status).append(" (").append(elapsedMs).append(" ms)");
+        String requestBody = requestBody();
+        if (!requestBody.isEmpty()) {
+            builder.append(System.lineSeparator()).append("Request body: ");
+            appendTruncated(builder, requestBody, maxBody);
+        }
+        String responseBody = responseBody();
+        if (!responseBody.isEmpty()) {
+            builder.append(System.lineSeparator()).append("Response body: ");
+            appendTruncated(builder, responseBody, maxBody);
+        }
+        return builder.toString();
+    }
+
+    private static void appendTruncated(StringBuilder builder, String body, int maxBody) {
+        if (body.length() <= maxBody) {
+            builder.append(body);
+        } else {
+            builder.append(body, 0, maxBody).append("... [").append(body.length() - maxBody).append(" more chars]");
+        }
+    }
+
+    private static Map<String, String> toMap(Headers headers) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (Header header : headers) {
+            map.put(header.getName(), header.getValue());
+        }
+        return map;
+    }
+
+    private static String bodyOf(Object body) {
+        if (body == null) {
+            return "";
+        }
+        if (body instanceof byte[]) {
+            return new String((byte[]) body, StandardCharsets.UTF_8);
+        }
+        return body.toString();
+    }
+}
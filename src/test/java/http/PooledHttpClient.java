@@ -0,0 +1,174 @@
+package http;
+
+import config.TestProperties;
+import io.restassured.config.HttpClientConfig;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/*
+ * One keep-alive connection pool for every RestAssured request in the JVM.
+ * REST Assured mutates the client it is given (interceptors, route planner), so each thread
+ * gets its own lightweight DefaultHttpClient while all of them lease from the same pool.
+ */
+@SuppressWarnings("deprecation")
+public final class PooledHttpClient {
+    private static final Logger logger = LogManager.getLogger(PooledHttpClient.class);
+
+    private static final int MAX_TOTAL = TestProperties.getInt("thinking.http.maxTotal", 200);
+    private static final int MAX_PER_ROUTE = TestProperties.getInt("thinking.http.maxPerRoute", 50);
+    private static final int CONNECT_TIMEOUT_MS = TestProperties.getInt("thinking.http.connectTimeoutMs", 10_000);
+    private static final int READ_TIMEOUT_MS = TestProperties.getInt("thinking.http.readTimeoutMs", 30_000);
+    private static final long KEEP_ALIVE_MS = TestProperties.getLong("thinking.http.keepAliveMs", 30_000);
+    private static final long IDLE_EVICT_SECONDS = TestProperties.getLong("thinking.http.idleEvictSeconds", 30);
+
+    private static final AtomicLong REUSED = new AtomicLong();
+    private static final AtomicLong OPENED = new AtomicLong();
+    private static final CountingConnectionManager CONNECTION_MANAGER = new CountingConnectionManager();
+    private static final ThreadLocal<DefaultHttpClient> CLIENTS = ThreadLocal.withInitial(PooledHttpClient::newClient);
+    private static final ThreadLocal<Boolean> STREAMING = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    static {
+        CONNECTION_MANAGER.setMaxTotal(MAX_TOTAL);
+        CONNECTION_MANAGER.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-idle-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(() -> {
+            CONNECTION_MANAGER.closeExpiredConnections();
+            CONNECTION_MANAGER.closeIdleConnections(IDLE_EVICT_SECONDS, TimeUnit.SECONDS);
+        }, IDLE_EVICT_SECONDS, IDLE_EVICT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private PooledHttpClient() {
+    }
+
+    public static HttpClientConfig httpClientConfig() {
+        return httpClientConfig(READ_TIMEOUT_MS);
+    }
+
+    //REST Assured applies these params to the pooled client on every request, so they last for one call
+    public static HttpClientConfig httpClientConfig(int readTimeoutMs) {
+        return HttpClientConfig.httpClientConfig()
+                .setParam("http.connection.timeout", CONNECT_TIMEOUT_MS)
+                .setParam("http.socket.timeout", readTimeoutMs)
+                .httpClientFactory(CLIENTS::get);
+    }
+
+    /*
+     * Runs the call with response bodies left on the socket instead of buffered in memory.
+     * The caller must read or close Response.asInputStream() to give the connection back to the pool.
+     */
+    public static <T> T streaming(Supplier<T> call) {
+        STREAMING.set(Boolean.TRUE);
+        try {
+            return call.get();
+        } finally {
+            STREAMING.remove();
+        }
+    }
+
+    public static boolean isStreaming() {
+        return STREAMING.get();
+    }
+
+    public static long reusedConnections() {
+        return REUSED.get();
+    }
+
+    public static long openedConnections() {
+        return OPENED.get();
+    }
+
+    public static String stats() {
+        return "connections reused=" + REUSED.get() + ", opened=" + OPENED.get()
+                + ", pool=" + CONNECTION_MANAGER.getTotalStats();
+    }
+
+    public static void logStats() {
+        logger.info("HTTP " + stats());
+    }
+
+    private static DefaultHttpClient newClient() {
+        HttpParams params = new BasicHttpParams();
+        HttpConnectionParams.setConnectionTimeout(params, CONNECT_TIMEOUT_MS);
+        HttpConnectionParams.setSoTimeout(params, READ_TIMEOUT_MS);
+        HttpConnectionParams.setStaleCheckingEnabled(params, true);
+
+        DefaultHttpClient client = new DefaultHttpClient(CONNECTION_MANAGER, params);
+        client.setKeepAliveStrategy(new KeepAliveStrategy());
+        //REST Assured never reads empty or ignored bodies, which would keep their connection leased forever
+        client.addResponseInterceptor((response, context) -> {
+            HttpEntity entity = response.getEntity();
+            if (entity != null && entity.isStreaming() && !STREAMING.get()) {
+                response.setEntity(new BufferedHttpEntity(entity));
+            }
+        });
+        return client;
+    }
+
+    //Servers that omit Keep-Alive: timeout would otherwise keep the connection forever
+    private static class KeepAliveStrategy implements ConnectionKeepAliveStrategy {
+        private final ConnectionKeepAliveStrategy headerStrategy = new DefaultConnectionKeepAliveStrategy();
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            long fromHeader = headerStrategy.getKeepAliveDuration(response, context);
+            return fromHeader > 0 ? Math.min(fromHeader, KEEP_ALIVE_MS) : KEEP_ALIVE_MS;
+        }
+    }
+
+    private static class CountingConnectionManager extends PoolingClientConnectionManager {
+
+        CountingConnectionManager() {
+            super(SchemeRegistryFactory.createDefault());
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+            ClientConnectionRequest request = super.requestConnection(route, state);
+            return new ClientConnectionRequest() {
+                @Override
+                public ManagedClientConnection getConnection(long timeout, TimeUnit tunit)
+                        throws InterruptedException, ConnectionPoolTimeoutException {
+                    ManagedClientConnection connection = request.getConnection(timeout, tunit);
+                    if (connection.isOpen()) {
+                        REUSED.incrementAndGet();
+                    } else {
+                        OPENED.incrementAndGet();
+                    }
+                    return connection;
+                }
+
+                @Override
+                public void abortRequest() {
+                    request.abortRequest();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package http;
+
+import config.TestProperties;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/*
+ * The last -Dthinking.log.keptPerTest exchanges of the test running on each thread, shared by
+ * AsyncLoggingFilter and AllureHttpFilter and driven by FailedTestLogging. Whichever of the two
+ * filters sees a response first captures it; the other gets the same exchange back.
+ */
+final class TestExchanges {
+    private static final int KEPT_PER_TEST = TestProperties.getInt("thinking.log.keptPerTest", 20);
+    private static final ThreadLocal<Deque<HttpExchange>> CURRENT_TEST = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final ThreadLocal<Response> LAST_RESPONSE = new ThreadLocal<>();
+
+    private TestExchanges() {
+    }
+
+    static HttpExchange capture(FilterableRequestSpecification requestSpec, Response response, long elapsedMs) {
+        Deque<HttpExchange> exchanges = CURRENT_TEST.get();
+        if (LAST_RESPONSE.get() == response && !exchanges.isEmpty()) {
+            return exchanges.getLast();
+        }
+        HttpExchange exchange = new HttpExchange(requestSpec, response, elapsedMs);
+        if (exchanges.size() == KEPT_PER_TEST) {
+            exchanges.removeFirst();
+        }
+        exchanges.addLast(exchange);
+        LAST_RESPONSE.set(response);
+        return exchange;
+    }
+
+    static void startTest() {
+        CURRENT_TEST.get().clear();
+        LAST_RESPONSE.remove();
+    }
+
+    static List<HttpExchange> currentTest() {
+        return new ArrayList<>(CURRENT_TEST.get());
+    }
+
+    static void finishTest() {
+        CURRENT_TEST.remove();
+        LAST_RESPONSE.remove();
+    }
+}
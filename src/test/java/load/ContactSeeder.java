@@ -0,0 +1,155 @@
+package load;
+
+import async.AsyncContactListClient;
+import client.RetryPolicy;
+import config.TestProperties;
+import model.FrozenBody;
+import model.contact.ContactRequest;
+import model.contact.ContactResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+ * Fills one account with contacts as fast as the service accepts them. At most `window` creates
+ * are in flight; the generator is only asked for the next contact once a slot frees up, so a slow
+ * service slows the producer down instead of queueing requests in memory. 429 and 5xx answers are
+ * retried with jittered exponential backoff, and every created _id is appended to idsFile.
+ * Creates go through AsyncContactListClient, so the window is held by requests, not threads.
+ */
+public class ContactSeeder {
+    private static final Logger logger = LogManager.getLogger(ContactSeeder.class);
+
+    private final int window;
+    private final int maxRetries;
+    private final long backoffMillis;
+    private final Path idsFile;
+    private final LongAdder retries = new LongAdder();
+    private final AsyncContactListClient client = AsyncContactListClient.shared();
+
+    public ContactSeeder(int window, int maxRetries, long backoffMillis, Path idsFile) {
+        this.window = window;
+        this.maxRetries = maxRetries;
+        this.backoffMillis = backoffMillis;
+        this.idsFile = idsFile;
+    }
+
+    public static ContactSeeder fromProperties() {
+        return new ContactSeeder(
+                TestProperties.getInt("thinking.seed.window", 64),
+                TestProperties.getInt("thinking.seed.maxRetries", 5),
+                TestProperties.getLong("thinking.seed.backoffMs", 50),
+                Paths.get(TestProperties.getString("thinking.seed.idsFile", "build/seed/contact-ids.txt")));
+    }
+
+    public SeedReport seed(String token, long count, Supplier<ContactRequest> generator) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(window);
+        LongAdder created = new LongAdder();
+        LongAdder failed = new LongAdder();
+        long retriesBefore = retries.sum();
+
+        logger.info("Seeding " + count + " contacts, " + window + " in flight, ids to " + idsFile.toAbsolutePath());
+        long start = System.nanoTime();
+        try (BufferedWriter ids = openIdsFile()) {
+            for (long i = 0; i < count; i++) {
+                inFlight.acquire();
+                create(token, generator.get().freeze(), 0)
+                        .thenAccept(id -> write(ids, id))
+                        .whenComplete((ignored, failure) -> {
+                            if (failure == null) {
+                                created.increment();
+                            } else {
+                                failed.increment();
+                                logger.debug("Contact was not created", failure);
+                            }
+                            inFlight.release();
+                        });
+            }
+            //Every permit back means every request has finished
+            inFlight.acquire(window);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + idsFile, e);
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        SeedReport report = new SeedReport(created.sum(), failed.sum(), retries.sum() - retriesBefore, elapsedSeconds);
+        logger.info("Seed finished: " + report.format());
+        return report;
+    }
+
+    //Unlike RetryPolicy.idempotent this also repeats POST: a duplicate contact is harmless when seeding
+    private CompletableFuture<String> create(String token, FrozenBody contact, int attempt) {
+        return client.addContact(token, contact).thenCompose(response -> {
+            int status = response.getStatusCode();
+            if (status == 201) {
+                return CompletableFuture.completedFuture(response.as(ContactResponse.class).getId());
+            }
+            if ((status == 429 || status >= 500) && attempt < maxRetries) {
+                retries.increment();
+                long backoff = RetryPolicy.jitteredBackoff(backoffMillis, attempt, response.getHeader("Retry-After"));
+                Executor later = CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS);
+                return CompletableFuture.runAsync(() -> { }, later).thenCompose(ignored -> create(token, contact, attempt + 1));
+            }
+            throw new IllegalStateException("POST contacts answered " + status);
+        });
+    }
+
+    private void write(BufferedWriter ids, String id) {
+        synchronized (ids) {
+            try {
+                ids.write(id);
+                ids.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write " + idsFile, e);
+            }
+        }
+    }
+
+    private BufferedWriter openIdsFile() throws IOException {
+        Path parent = idsFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return Files.newBufferedWriter(idsFile, StandardCharsets.UTF_8);
+    }
+
+    public static class SeedReport {
+        private final long created;
+        private final long failed;
+        private final long retries;
+        private final double elapsedSeconds;
+
+        SeedReport(long created, long failed, long retries, double elapsedSeconds) {
+            this.created = created;
+            this.failed = failed;
+            this.retries = retries;
+            this.elapsedSeconds = elapsedSeconds;
+        }
+
+        public long created() {
+            return created;
+        }
+
+        public long failed() {
+            return failed;
+        }
+
+        public String format() {
+            return String.format("%d created, %d failed, %d retries in %.1f s (%.0f contacts/s)",
+                    created, failed, retries, elapsedSeconds, elapsedSeconds == 0 ? 0 : created / elapsedSeconds);
+        }
+    }
+}
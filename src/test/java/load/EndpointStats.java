@@ -0,0 +1,68 @@
+package load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Request and error counters per endpoint bucket, safe to update from any number of threads.
+ * Each bucket keeps two latency histograms in microseconds: from the actual send time, and from
+ * the intended one on the load schedule, which also counts the time a request waited to be sent.
+ */
+public class EndpointStats {
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final ConcurrentMap<String, Counters> countersByEndpoint = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, boolean error, long latencyNanos, long correctedLatencyNanos) {
+        countersByEndpoint.computeIfAbsent(endpoint, key -> new Counters()).record(error, latencyNanos, correctedLatencyNanos);
+    }
+
+    public Map<String, Counters> snapshot() {
+        return new TreeMap<>(countersByEndpoint);
+    }
+
+    public void reset() {
+        countersByEndpoint.clear();
+    }
+
+    public static class Counters {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final Histogram latency = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final Histogram correctedLatency = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+        void record(boolean error, long latencyNanos, long correctedLatencyNanos) {
+            requests.increment();
+            if (error) {
+                errors.increment();
+            }
+            latency.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+            correctedLatency.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(correctedLatencyNanos)));
+        }
+
+        public long requests() {
+            return requests.sum();
+        }
+
+        public long errors() {
+            return errors.sum();
+        }
+
+        //Microseconds from the actual send time
+        public Histogram latency() {
+            return latency.copy();
+        }
+
+        //Microseconds from the intended send time
+        public Histogram correctedLatency() {
+            return correctedLatency.copy();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package load;
+
+import http.Endpoints;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+public class EndpointStatsFilter implements Filter {
+    private final EndpointStats stats;
+
+    public EndpointStatsFilter(EndpointStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec, FilterContext ctx) {
+        String endpoint = Endpoints.key(requestSpec.getMethod(), requestSpec.getURI());
+        IntendedStart start = IntendedStart.current();
+        long send = System.nanoTime();
+        Response response;
+        try {
+            response = ctx.next(requestSpec, responseSpec);
+        } catch (RuntimeException e) {
+            record(endpoint, true, System.nanoTime() - send, start);
+            throw e;
+        }
+        record(endpoint, response.getStatusCode() >= 400, System.nanoTime() - send, start);
+        return response;
+    }
+
+    private void record(String endpoint, boolean error, long latencyNanos, IntendedStart start) {
+        stats.record(endpoint, error, latencyNanos, start == null ? latencyNanos : start.corrected(latencyNanos));
+    }
+}
@@ -0,0 +1,35 @@
+package load;
+
+/*
+ * When a scenario should have started by the arrival schedule, against when it did. A user who
+ * arrived on schedule would have sent every request of the scenario that much earlier, so each
+ * request's corrected latency is its own latency plus the scenario's lag: the queueing in the load
+ * generator that a real user would have waited through is not omitted from any step.
+ * Blocking scenarios find theirs on the running thread; async flows get it passed in.
+ */
+public final class IntendedStart {
+    private static final ThreadLocal<IntendedStart> CURRENT = new ThreadLocal<>();
+
+    private final long lagNanos;
+
+    IntendedStart(long intendedNanos, long startedNanos) {
+        this.lagNanos = Math.max(0, startedNanos - intendedNanos);
+    }
+
+    //Latency of a request that took latencyNanos, as seen from its intended send time
+    public long corrected(long latencyNanos) {
+        return latencyNanos + lagNanos;
+    }
+
+    static void set(IntendedStart start) {
+        CURRENT.set(start);
+    }
+
+    static IntendedStart current() {
+        return CURRENT.get();
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
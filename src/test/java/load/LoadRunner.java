@@ -0,0 +1,238 @@
+package load;
+
+import config.TestProperties;
+import org.HdrHistogram.Histogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/*
+ * Open-model load generator: scenario instances arrive at a fixed rate for a fixed duration,
+ * whether or not earlier ones have finished. Arrivals are handed to a pool of up to
+ * maxConcurrency threads; when every thread is busy they wait in the queue instead of
+ * slowing the arrival rate down.
+ * Latency is also measured from each arrival's intended time on that schedule (see IntendedStart),
+ * for the scenario and for every request in it, so a stall that holds requests back shows up in the
+ * corrected percentiles instead of being omitted from them.
+ */
+public class LoadRunner {
+    private static final Logger logger = LogManager.getLogger(LoadRunner.class);
+    //How long the last scenarios may keep running once every arrival was started
+    private static final long GRACE_SECONDS = TestProperties.getLong("thinking.load.graceSeconds", 300);
+
+    private final double ratePerSecond;
+    private final long durationSeconds;
+    private final int maxConcurrency;
+    private final EndpointStats stats;
+
+    public LoadRunner(double ratePerSecond, long durationSeconds, int maxConcurrency, EndpointStats stats) {
+        this.ratePerSecond = ratePerSecond;
+        this.durationSeconds = durationSeconds;
+        this.maxConcurrency = maxConcurrency;
+        this.stats = stats;
+    }
+
+    public static LoadRunner fromProperties(EndpointStats stats) {
+        return new LoadRunner(
+                TestProperties.getDouble("thinking.load.rate", 50),
+                TestProperties.getLong("thinking.load.durationSeconds", 60),
+                TestProperties.getInt("thinking.load.maxConcurrency", 256),
+                stats);
+    }
+
+    public LoadReport run(Runnable scenario) throws InterruptedException {
+        ExecutorService executor = newExecutor();
+        LongAdder completed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        EndpointStats.Counters scenarios = new EndpointStats.Counters();
+
+        logger.info("Load run: " + ratePerSecond + " scenarios/s for " + durationSeconds + " s, "
+                + maxConcurrency + " threads");
+        long start = generateArrivals(intended -> executor.execute(() -> {
+            long started = System.nanoTime();
+            boolean error = false;
+            IntendedStart.set(new IntendedStart(intended, started));
+            try {
+                scenario.run();
+                completed.increment();
+            } catch (RuntimeException | AssertionError e) {
+                error = true;
+                failed.increment();
+                logger.debug("Scenario failed", e);
+            } finally {
+                IntendedStart.clear();
+                long end = System.nanoTime();
+                scenarios.record(error, end - started, end - intended);
+            }
+        }));
+        executor.shutdown();
+        boolean finished = executor.awaitTermination(durationSeconds + GRACE_SECONDS, TimeUnit.SECONDS);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        long completedScenarios = completed.sum();
+        long failedScenarios = failed.sum();
+        if (!finished) {
+            executor.shutdownNow();
+            failedScenarios += unfinished(completedScenarios, failedScenarios, durationSeconds + GRACE_SECONDS);
+        }
+
+        return new LoadReport(stats.snapshot(), scenarios, completedScenarios, failedScenarios, elapsedSeconds);
+    }
+
+    /*
+     * Same arrival schedule, but each scenario is a non-blocking flow: starting it only queues
+     * requests, so the number in flight is bounded by the service, not by a thread pool. The flow
+     * gets its IntendedStart to correct the latency of its own requests.
+     */
+    public LoadReport runAsync(Function<IntendedStart, ? extends CompletionStage<?>> scenario) throws InterruptedException {
+        LongAdder completed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        AtomicLong inFlight = new AtomicLong();
+        EndpointStats.Counters scenarios = new EndpointStats.Counters();
+
+        logger.info("Async load run: " + ratePerSecond + " scenarios/s for " + durationSeconds + " s");
+        long start = generateArrivals(intended -> {
+            long started = System.nanoTime();
+            inFlight.incrementAndGet();
+            CompletionStage<?> flow;
+            try {
+                flow = scenario.apply(new IntendedStart(intended, started));
+            } catch (RuntimeException e) {
+                failed.increment();
+                inFlight.decrementAndGet();
+                long end = System.nanoTime();
+                scenarios.record(true, end - started, end - intended);
+                logger.debug("Scenario failed to start", e);
+                return;
+            }
+            flow.whenComplete((result, failure) -> {
+                if (failure == null) {
+                    completed.increment();
+                } else {
+                    failed.increment();
+                    logger.debug("Scenario failed", failure);
+                }
+                long end = System.nanoTime();
+                scenarios.record(failure != null, end - started, end - intended);
+                inFlight.decrementAndGet();
+            });
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(GRACE_SECONDS);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        long completedScenarios = completed.sum();
+        long failedScenarios = failed.sum();
+        if (completedScenarios + failedScenarios < totalArrivals()) {
+            failedScenarios += unfinished(completedScenarios, failedScenarios, GRACE_SECONDS);
+        }
+
+        return new LoadReport(stats.snapshot(), scenarios, completedScenarios, failedScenarios, elapsedSeconds);
+    }
+
+    //Scenarios that never finished count as failed: on an overloaded run they are the ones that matter
+    private long unfinished(long completedScenarios, long failedScenarios, long waitedSeconds) {
+        long unfinished = totalArrivals() - completedScenarios - failedScenarios;
+        logger.warn(unfinished + " scenarios had not finished " + waitedSeconds + " s after the last arrival and count as failed");
+        return unfinished;
+    }
+
+    private long totalArrivals() {
+        return (long) (ratePerSecond * durationSeconds);
+    }
+
+    //Calls arrival with each intended start time, late or not, and returns the start of the run
+    private long generateArrivals(LongConsumer arrival) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long totalArrivals = totalArrivals();
+
+        stats.reset();
+        long start = System.nanoTime();
+        for (long i = 0; i < totalArrivals; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            arrival.accept(intended);
+        }
+        return start;
+    }
+
+    private ExecutorService newExecutor() {
+        AtomicInteger sequence = new AtomicInteger();
+        return new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "load-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public static class LoadReport {
+        private final Map<String, EndpointStats.Counters> endpoints;
+        private final EndpointStats.Counters scenarios;
+        private final long completedScenarios;
+        private final long failedScenarios;
+        private final double elapsedSeconds;
+
+        LoadReport(Map<String, EndpointStats.Counters> endpoints, EndpointStats.Counters scenarios,
+                   long completedScenarios, long failedScenarios, double elapsedSeconds) {
+            this.endpoints = endpoints;
+            this.scenarios = scenarios;
+            this.completedScenarios = completedScenarios;
+            this.failedScenarios = failedScenarios;
+            this.elapsedSeconds = elapsedSeconds;
+        }
+
+        public long failedScenarios() {
+            return failedScenarios;
+        }
+
+        public double failedRatio() {
+            long total = completedScenarios + failedScenarios;
+            return total == 0 ? 0 : (double) failedScenarios / total;
+        }
+
+        //Latency columns in ms; "co" ones are from the intended send time, corrected for coordinated omission
+        public String format() {
+            StringBuilder builder = new StringBuilder()
+                    .append(String.format("Scenarios: %d completed, %d failed in %.1f s%n",
+                            completedScenarios, failedScenarios, elapsedSeconds))
+                    .append(String.format("%-26s %10s %10s %10s %10s %9s %9s %9s %9s%n", "endpoint", "requests", "req/s",
+                            "errors", "error %", "p50", "p99", "p99 co", "max co"));
+            row(builder, "(scenario)", scenarios);
+            for (Map.Entry<String, EndpointStats.Counters> entry : endpoints.entrySet()) {
+                row(builder, entry.getKey(), entry.getValue());
+            }
+            return builder.toString();
+        }
+
+        private void row(StringBuilder builder, String name, EndpointStats.Counters counters) {
+            long requests = counters.requests();
+            long errors = counters.errors();
+            Histogram latency = counters.latency();
+            Histogram corrected = counters.correctedLatency();
+            builder.append(String.format("%-26s %10d %10.1f %10d %10.2f %9.1f %9.1f %9.1f %9.1f%n", name, requests,
+                    requests / elapsedSeconds, errors, requests == 0 ? 0 : 100.0 * errors / requests,
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(99)),
+                    millis(corrected.getValueAtPercentile(99)), millis(corrected.getMaxValue())));
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package metrics;
+
+import io.restassured.filter.OrderedFilter;
+
+//Times each attempt on the wire: inside ResilienceFilter, so retries, backoff and rate-limit waits stay out
+public class AttemptLatencyFilter extends LatencyFilter implements OrderedFilter {
+
+    public AttemptLatencyFilter(LatencyRecorder recorder) {
+        super(recorder);
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 1;
+    }
+}
@@ -0,0 +1,101 @@
+package metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * Latency histograms in microseconds, one per method + endpoint + status code.
+ * getInstance() holds each attempt on the wire, the API latency per status; endToEnd() holds what
+ * the caller waited, including retries, backoff and rate-limit waits.
+ */
+public final class LatencyRecorder {
+    private static final LatencyRecorder INSTANCE = new LatencyRecorder();
+    private static final LatencyRecorder END_TO_END = new LatencyRecorder();
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final ConcurrentMap<Key, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private LatencyRecorder() {
+    }
+
+    public static LatencyRecorder getInstance() {
+        return INSTANCE;
+    }
+
+    public static LatencyRecorder endToEnd() {
+        return END_TO_END;
+    }
+
+    public void record(String method, String endpoint, int status, long latencyMicros) {
+        histograms.computeIfAbsent(new Key(method, endpoint, status), key -> new ConcurrentHistogram(SIGNIFICANT_DIGITS))
+                .recordValue(Math.max(0, latencyMicros));
+    }
+
+    public Map<Key, Histogram> snapshot() {
+        Map<Key, Histogram> copy = new TreeMap<>();
+        histograms.forEach((key, histogram) -> copy.put(key, histogram.copy()));
+        return copy;
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    public static final class Key implements Comparable<Key> {
+        private final String method;
+        private final String endpoint;
+        private final int status;
+
+        Key(String method, String endpoint, int status) {
+            this.method = method;
+            this.endpoint = endpoint;
+            this.status = status;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byEndpoint = endpoint.compareTo(other.endpoint);
+            if (byEndpoint != 0) {
+                return byEndpoint;
+            }
+            int byMethod = method.compareTo(other.method);
+            return byMethod != 0 ? byMethod : Integer.compare(status, other.status);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return status == other.status && method.equals(other.method) && endpoint.equals(other.endpoint);
+        }
+
+        @Override
+        public int hashCode() {
+            return (method.hashCode() * 31 + endpoint.hashCode()) * 31 + status;
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + endpoint + " " + status;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import config.TestProperties;
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.TestResult;
+import org.HdrHistogram.Histogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+ * End-of-run latency summary: p50/p90/p99/p999/max of each attempt per method, endpoint and status,
+ * totals per method and endpoint with their error count, and under "endToEnd" the time callers
+ * waited including retries and backoff, by final status. Written to thinking.latency.out
+ * (build/reports/latency/latency.json by default) for build-to-build comparison, and attached to
+ * Allure as the single attachment of a separate "API latency report" result.
+ */
+public final class LatencyReport {
+    private static final Logger logger = LogManager.getLogger(LatencyReport.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private LatencyReport() {
+    }
+
+    public static void write(LatencyRecorder attempts, LatencyRecorder endToEnd) {
+        Map<LatencyRecorder.Key, Histogram> histograms = attempts.snapshot();
+        if (histograms.isEmpty()) {
+            return;
+        }
+        try {
+            ObjectNode root = toJson(histograms);
+            ArrayNode endToEndNodes = root.putArray("endToEnd");
+            endToEnd.snapshot().forEach((key, histogram) -> {
+                ObjectNode node = endToEndNodes.addObject();
+                node.put("method", key.getMethod());
+                node.put("endpoint", key.getEndpoint());
+                node.put("status", key.getStatus());
+                putPercentiles(node, histogram);
+            });
+            byte[] json = MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(root);
+
+            Path out = Paths.get(TestProperties.getString("thinking.latency.out", "build/reports/latency/latency.json"));
+            if (out.getParent() != null) {
+                Files.createDirectories(out.getParent());
+            }
+            Files.write(out, json);
+            logger.info("Latency report written to " + out.toAbsolutePath());
+
+            attachToAllure(json);
+        } catch (IOException e) {
+            logger.warn("Could not write latency report", e);
+        }
+    }
+
+    public static ObjectNode toJson(Map<LatencyRecorder.Key, Histogram> histograms) {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("generatedAt", Instant.now().toString());
+        root.put("unit", "ms");
+        ArrayNode endpoints = root.putArray("endpoints");
+        Map<String, Histogram> totals = new LinkedHashMap<>();
+        Map<String, Long> errors = new HashMap<>();
+        histograms.forEach((key, histogram) -> {
+            ObjectNode node = endpoints.addObject();
+            node.put("method", key.getMethod());
+            node.put("endpoint", key.getEndpoint());
+            node.put("status", key.getStatus());
+            putPercentiles(node, histogram);
+
+            String endpoint = key.getMethod() + " " + key.getEndpoint();
+            totals.computeIfAbsent(endpoint, k -> new Histogram(histogram.getNumberOfSignificantValueDigits())).add(histogram);
+            errors.merge(endpoint, key.getStatus() >= 400 ? histogram.getTotalCount() : 0, Long::sum);
+        });
+
+        ArrayNode summary = root.putArray("summary");
+        totals.forEach((endpoint, histogram) -> {
+            ObjectNode node = summary.addObject();
+            node.put("endpoint", endpoint);
+            node.put("errors", errors.get(endpoint));
+            putPercentiles(node, histogram);
+        });
+        return root;
+    }
+
+    private static void putPercentiles(ObjectNode node, Histogram histogram) {
+        node.put("count", histogram.getTotalCount());
+        node.put("p50", millis(histogram.getValueAtPercentile(50)));
+        node.put("p90", millis(histogram.getValueAtPercentile(90)));
+        node.put("p99", millis(histogram.getValueAtPercentile(99)));
+        node.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+        node.put("max", millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    //Class-level hooks have no Allure test context, so the report gets a result of its own
+    private static void attachToAllure(byte[] json) {
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        String uuid = UUID.randomUUID().toString();
+        lifecycle.scheduleTestCase(new TestResult()
+                .setUuid(uuid)
+                .setName("API latency report")
+                .setFullName("metrics.LatencyReport")
+                .setHistoryId("api-latency-report")
+                .setStatus(Status.PASSED));
+        lifecycle.startTestCase(uuid);
+        lifecycle.addAttachment("Latency per endpoint", "application/json", "json", json);
+        lifecycle.stopTestCase(uuid);
+        lifecycle.writeTestCase(uuid);
+    }
+}
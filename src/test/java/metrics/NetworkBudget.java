@@ -0,0 +1,22 @@
+package metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+ * Upper bounds NetworkBudgetRule enforces on a test that otherwise passed: HTTP calls made through
+ * the REST Assured chain and payload bytes sent plus received, both including the shared fixtures
+ * the test was first to need, and the time the test spent itself:
+ * its wall time without worker provisioning, cached logins and waits for shared fixtures.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface NetworkBudget {
+    int maxCalls() default Integer.MAX_VALUE;
+
+    long maxBytes() default Long.MAX_VALUE;
+
+    long maxMillis() default Long.MAX_VALUE;
+}
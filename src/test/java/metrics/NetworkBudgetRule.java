@@ -0,0 +1,60 @@
+package metrics;
+
+import io.qameta.allure.Allure;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Reports the network cost of every test and fails a passing test that went over its @NetworkBudget
+public class NetworkBudgetRule implements TestRule {
+    private static final Logger logger = LogManager.getLogger(NetworkBudgetRule.class);
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                NetworkCost cost = NetworkCost.start();
+                long start = System.nanoTime();
+                long wallNanos;
+                try {
+                    base.evaluate();
+                } finally {
+                    wallNanos = System.nanoTime() - start;
+                    NetworkCost.stop();
+                    String summary = cost.format(wallNanos);
+                    logger.info(description.getMethodName() + ": " + summary);
+                    Allure.addAttachment("Network cost", summary);
+                }
+                check(description, description.getAnnotation(NetworkBudget.class), cost, wallNanos);
+            }
+        };
+    }
+
+    private static void check(Description description, NetworkBudget budget, NetworkCost cost, long wallNanos) {
+        if (budget == null) {
+            return;
+        }
+        List<String> exceeded = new ArrayList<>();
+        if (cost.calls() > budget.maxCalls()) {
+            exceeded.add(cost.calls() + " calls > " + budget.maxCalls());
+        }
+        if (cost.bytes() > budget.maxBytes()) {
+            exceeded.add(cost.bytes() + " B > " + budget.maxBytes() + " B");
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(cost.activeNanos(wallNanos));
+        if (millis > budget.maxMillis()) {
+            exceeded.add(millis + " ms > " + budget.maxMillis() + " ms");
+        }
+        if (!exceeded.isEmpty()) {
+            throw new AssertionError(description.getMethodName() + " went over its network budget: "
+                    + String.join(", ", exceeded));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+ * HTTP calls, payload bytes and network time of the test running on the calling thread, fed by
+ * NetworkCostFilter and read by NetworkBudgetRule. Calls made inside excluded(...) are not counted;
+ * worker provisioning and cached logins use it, because whichever test runs first on a thread pays them.
+ * The test's clock also stops inside excluded(...) and waiting(...), so activeNanos() is the time
+ * the test spent itself, not the setup it happened to be first to need.
+ * Calls another thread makes inside chargedAsSetup(cost, ...) count as setup of that test: shared
+ * fixtures use it, so the test that triggers a fixture pays its calls and bytes but not its time.
+ */
+public final class NetworkCost {
+    private static final ThreadLocal<NetworkCost> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<int[]> EXCLUDED = ThreadLocal.withInitial(() -> new int[1]);
+    private static final ThreadLocal<NetworkCost> SETUP_OF = new ThreadLocal<>();
+    private static final ThreadLocal<int[]> PAUSED = ThreadLocal.withInitial(() -> new int[1]);
+
+    private long calls;
+    private long bytesSent;
+    private long bytesReceived;
+    private long networkNanos;
+    private long pausedNanos;
+    private final LongAdder setupCalls = new LongAdder();
+    private final LongAdder setupBytes = new LongAdder();
+    private final LongAdder setupNetworkNanos = new LongAdder();
+
+    private NetworkCost() {
+    }
+
+    public static <T> T excluded(Supplier<T> call) {
+        int[] depth = EXCLUDED.get();
+        depth[0]++;
+        try {
+            return waiting(call);
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    //Stops the test's clock while the calling thread waits on work done for other tests too
+    public static <T> T waiting(Supplier<T> wait) {
+        int[] depth = PAUSED.get();
+        long start = depth[0]++ == 0 ? System.nanoTime() : 0;
+        try {
+            return wait.get();
+        } finally {
+            if (--depth[0] == 0) {
+                NetworkCost cost = CURRENT.get();
+                if (cost != null) {
+                    cost.pausedNanos += System.nanoTime() - start;
+                }
+            }
+        }
+    }
+
+    //Cost of the test running on the calling thread, null outside a test
+    public static NetworkCost current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T chargedAsSetup(NetworkCost cost, Supplier<T> call) {
+        NetworkCost previous = SETUP_OF.get();
+        SETUP_OF.set(cost);
+        try {
+            return call.get();
+        } finally {
+            SETUP_OF.set(previous);
+        }
+    }
+
+    static NetworkCost start() {
+        NetworkCost cost = new NetworkCost();
+        CURRENT.set(cost);
+        return cost;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    static void record(long sent, long received, long elapsedNanos) {
+        if (EXCLUDED.get()[0] > 0) {
+            return;
+        }
+        NetworkCost cost = CURRENT.get();
+        if (cost != null) {
+            cost.calls++;
+            cost.bytesSent += sent;
+            cost.bytesReceived += received;
+            cost.networkNanos += elapsedNanos;
+            return;
+        }
+        NetworkCost setupOf = SETUP_OF.get();
+        if (setupOf != null) {
+            setupOf.setupCalls.increment();
+            setupOf.setupBytes.add(sent + received);
+            setupOf.setupNetworkNanos.add(elapsedNanos);
+        }
+    }
+
+    //The test's own calls plus the setup charged to it
+    public long calls() {
+        return calls + setupCalls.sum();
+    }
+
+    public long bytes() {
+        return bytesSent + bytesReceived + setupBytes.sum();
+    }
+
+    public long networkMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(networkNanos);
+    }
+
+    //Wall time of the test minus the excluded work and waits
+    public long activeNanos(long wallNanos) {
+        return Math.max(0, wallNanos - pausedNanos);
+    }
+
+    //Client time is whatever part of the active time was not spent waiting for a response
+    String format(long wallNanos) {
+        return String.format("%d calls, %d B sent, %d B received, %d ms network, %d ms client; "
+                        + "setup: %d calls, %d B, %d ms network, %d ms waited or excluded",
+                calls, bytesSent, bytesReceived, networkMillis(),
+                TimeUnit.NANOSECONDS.toMillis(Math.max(0, activeNanos(wallNanos) - networkNanos)),
+                setupCalls.sum(), setupBytes.sum(), TimeUnit.NANOSECONDS.toMillis(setupNetworkNanos.sum()),
+                TimeUnit.NANOSECONDS.toMillis(pausedNanos));
+    }
+}
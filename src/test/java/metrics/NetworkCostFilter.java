@@ -0,0 +1,50 @@
+package metrics;
+
+import http.PooledHttpClient;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.nio.charset.StandardCharsets;
+
+public class NetworkCostFilter implements OrderedFilter {
+
+    //Inside the response cache, so a 304 costs no body, and inside retries, so every attempt is a call
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 2;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec, FilterContext ctx) {
+        long start = System.nanoTime();
+        Response response = null;
+        try {
+            response = ctx.next(requestSpec, responseSpec);
+            return response;
+        } finally {
+            NetworkCost.record(sentBytes(requestSpec.getBody()), receivedBytes(response), System.nanoTime() - start);
+        }
+    }
+
+    private static long sentBytes(Object body) {
+        if (body instanceof byte[]) {
+            return ((byte[]) body).length;
+        }
+        return body == null ? 0 : body.toString().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    //A streamed body is still on the socket, so only its declared length is known
+    private static long receivedBytes(Response response) {
+        if (response == null) {
+            return 0;
+        }
+        if (PooledHttpClient.isStreaming()) {
+            String length = response.getHeader("Content-Length");
+            return length == null ? 0 : Long.parseLong(length.trim());
+        }
+        return response.asByteArray().length;
+    }
+}
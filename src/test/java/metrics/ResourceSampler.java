@@ -0,0 +1,205 @@
+package metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/*
+ * Samples the JVM through JMX at a fixed interval during a soak run and appends every sample to a CSV:
+ * heap left after the last GC, heap and non-heap in use, GC count and time, live threads and open
+ * file descriptors. growing() names the resources whose floor rose in every window of the run by more
+ * than maxGrowth: the shape of a leak, unlike a GC sawtooth or a one-off step while the run warms up.
+ */
+public final class ResourceSampler implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(ResourceSampler.class);
+    private static final String HEADER = "elapsed_s,live_heap_bytes,heap_used_bytes,non_heap_used_bytes,gc_count,gc_millis,threads,open_fds";
+
+    private final long startNanos = System.nanoTime();
+    private final List<Sample> samples = new CopyOnWriteArrayList<>();
+    private final BufferedWriter csv;
+    private final ScheduledExecutorService scheduler;
+
+    private ResourceSampler(long intervalMillis, Path out) throws IOException {
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        csv = Files.newBufferedWriter(out);
+        csv.write(HEADER);
+        csv.newLine();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "resource-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static ResourceSampler start(long intervalMillis, Path out) throws IOException {
+        return new ResourceSampler(intervalMillis, out);
+    }
+
+    public List<Sample> samples() {
+        return samples;
+    }
+
+    /*
+     * Samples taken after warmupSeconds are split into windows of equal length and reduced to their
+     * minimum. A resource is reported when that minimum rose from each window to the next and the last
+     * is more than maxGrowth (0.2 = 20%) above the first. Unavailable or zero baselines are not judged.
+     */
+    public List<String> growing(int windows, double maxGrowth, long warmupSeconds) {
+        List<Sample> measured = new ArrayList<>();
+        for (Sample sample : samples) {
+            if (sample.elapsedSeconds >= warmupSeconds) {
+                measured.add(sample);
+            }
+        }
+        List<String> growing = new ArrayList<>();
+        if (windows < 2 || measured.size() < windows) {
+            logger.warn("Only " + measured.size() + " samples after warm-up, too few to judge growth over " + windows + " windows");
+            return growing;
+        }
+        check("live heap", measured, sample -> sample.liveHeapBytes, windows, maxGrowth, growing);
+        check("non-heap", measured, sample -> sample.nonHeapUsedBytes, windows, maxGrowth, growing);
+        check("threads", measured, sample -> sample.threads, windows, maxGrowth, growing);
+        check("open file descriptors", measured, sample -> sample.openFds, windows, maxGrowth, growing);
+        return growing;
+    }
+
+    //Stops sampling after one last sample
+    @Override
+    public void close() {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sample();
+        try {
+            csv.close();
+        } catch (IOException e) {
+            logger.warn("Could not close resource samples", e);
+        }
+    }
+
+    private static void check(String name, List<Sample> measured, ToLongFunction<Sample> value, int windows,
+                              double maxGrowth, List<String> growing) {
+        long[] floors = new long[windows];
+        for (int window = 0; window < windows; window++) {
+            int from = window * measured.size() / windows;
+            int to = (window + 1) * measured.size() / windows;
+            long floor = Long.MAX_VALUE;
+            for (Sample sample : measured.subList(from, to)) {
+                floor = Math.min(floor, value.applyAsLong(sample));
+            }
+            floors[window] = floor;
+        }
+        if (floors[0] <= 0) {
+            return;
+        }
+        for (int window = 1; window < windows; window++) {
+            if (floors[window] <= floors[window - 1]) {
+                return;
+            }
+        }
+        double growth = (double) (floors[windows - 1] - floors[0]) / floors[0];
+        if (growth > maxGrowth) {
+            growing.add(String.format(Locale.ROOT, "%s grew %.0f%% (%d -> %d)", name, growth * 100, floors[0], floors[windows - 1]));
+        }
+    }
+
+    private synchronized void sample() {
+        Sample sample = Sample.take((System.nanoTime() - startNanos) / 1_000_000_000L);
+        samples.add(sample);
+        try {
+            csv.write(sample.toCsv());
+            csv.newLine();
+            csv.flush();
+        } catch (IOException e) {
+            logger.warn("Could not write resource sample", e);
+        }
+    }
+
+    public static final class Sample {
+        private final long elapsedSeconds;
+        private final long liveHeapBytes;
+        private final long heapUsedBytes;
+        private final long nonHeapUsedBytes;
+        private final long gcCount;
+        private final long gcMillis;
+        private final long threads;
+        private final long openFds;
+
+        private Sample(long elapsedSeconds, long liveHeapBytes, long heapUsedBytes, long nonHeapUsedBytes,
+                       long gcCount, long gcMillis, long threads, long openFds) {
+            this.elapsedSeconds = elapsedSeconds;
+            this.liveHeapBytes = liveHeapBytes;
+            this.heapUsedBytes = heapUsedBytes;
+            this.nonHeapUsedBytes = nonHeapUsedBytes;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+            this.threads = threads;
+            this.openFds = openFds;
+        }
+
+        static Sample take(long elapsedSeconds) {
+            //Heap pools as the last collection left them; 0 until the first GC
+            long liveHeap = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                MemoryUsage afterGc = pool.getCollectionUsage();
+                if (pool.getType() == MemoryType.HEAP && afterGc != null) {
+                    liveHeap += afterGc.getUsed();
+                }
+            }
+            long gcCount = 0;
+            long gcMillis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcCount += Math.max(0, collector.getCollectionCount());
+                gcMillis += Math.max(0, collector.getCollectionTime());
+            }
+            OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+            long openFds = os instanceof com.sun.management.UnixOperatingSystemMXBean
+                    ? ((com.sun.management.UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount()
+                    : -1;
+            return new Sample(elapsedSeconds, liveHeap,
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+                    ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage().getUsed(),
+                    gcCount, gcMillis, ManagementFactory.getThreadMXBean().getThreadCount(), openFds);
+        }
+
+        public long gcMillis() {
+            return gcMillis;
+        }
+
+        public long gcCount() {
+            return gcCount;
+        }
+
+        String toCsv() {
+            return elapsedSeconds + "," + liveHeapBytes + "," + heapUsedBytes + "," + nonHeapUsedBytes + ","
+                    + gcCount + "," + gcMillis + "," + threads + "," + openFds;
+        }
+    }
+}
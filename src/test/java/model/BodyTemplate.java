@@ -0,0 +1,140 @@
+package model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * A body rendered once with placeholders for a few string fields. render() only copies the fixed
+ * segments and writes the new values between them, so the model is never mapped again.
+ */
+public final class BodyTemplate {
+    private static final String MARKER = "@@thinking-template-";
+
+    private final String[] fields;
+    //segments[i] precedes the value of fields[order[i]]; the last segment closes the body
+    private final byte[][] segments;
+    private final int[] order;
+    private final int fixedLength;
+
+    private BodyTemplate(String[] fields, byte[][] segments, int[] order) {
+        this.fields = fields;
+        this.segments = segments;
+        this.order = order;
+        int length = 0;
+        for (byte[] segment : segments) {
+            length += segment.length;
+        }
+        this.fixedLength = length;
+    }
+
+    //Every named field must be a top-level property of the model
+    public static BodyTemplate of(Object model, String... fields) {
+        ObjectNode tree = Responses.MAPPER.valueToTree(model);
+        for (int i = 0; i < fields.length; i++) {
+            if (!tree.has(fields[i])) {
+                throw new IllegalArgumentException(model.getClass().getSimpleName() + " has no field " + fields[i]);
+            }
+            tree.put(fields[i], MARKER + i + "@@");
+        }
+        byte[] rendered;
+        try {
+            rendered = Responses.MAPPER.writeValueAsBytes(tree);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Cannot serialize " + model.getClass().getSimpleName(), e);
+        }
+
+        int[] positions = new int[fields.length];
+        Integer[] byPosition = new Integer[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            positions[i] = indexOf(rendered, ("\"" + MARKER + i + "@@\"").getBytes(StandardCharsets.UTF_8));
+            byPosition[i] = i;
+        }
+        Arrays.sort(byPosition, (a, b) -> Integer.compare(positions[a], positions[b]));
+
+        byte[][] segments = new byte[fields.length + 1][];
+        int[] order = new int[fields.length];
+        int from = 0;
+        for (int i = 0; i < fields.length; i++) {
+            int field = byPosition[i];
+            segments[i] = Arrays.copyOfRange(rendered, from, positions[field]);
+            order[i] = field;
+            from = positions[field] + MARKER.length() + String.valueOf(field).length() + 4;
+        }
+        segments[fields.length] = Arrays.copyOfRange(rendered, from, rendered.length);
+        return new BodyTemplate(fields.clone(), segments, order);
+    }
+
+    //Values in the order the fields were named in of()
+    public FrozenBody render(String... values) {
+        if (values.length != fields.length) {
+            throw new IllegalArgumentException("Expected values for " + Arrays.toString(fields));
+        }
+        byte[][] encoded = new byte[values.length][];
+        int length = fixedLength;
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = isPlain(values[i]) ? null : jsonString(values[i]);
+            length += encoded[i] == null ? values[i].length() + 2 : encoded[i].length;
+        }
+
+        byte[] body = new byte[length];
+        int at = 0;
+        for (int i = 0; i < order.length; i++) {
+            System.arraycopy(segments[i], 0, body, at, segments[i].length);
+            at += segments[i].length;
+            int field = order[i];
+            if (encoded[field] != null) {
+                System.arraycopy(encoded[field], 0, body, at, encoded[field].length);
+                at += encoded[field].length;
+            } else {
+                String value = values[field];
+                body[at++] = '"';
+                for (int c = 0; c < value.length(); c++) {
+                    body[at++] = (byte) value.charAt(c);
+                }
+                body[at++] = '"';
+            }
+        }
+        byte[] last = segments[segments.length - 1];
+        System.arraycopy(last, 0, body, at, last.length);
+        return new FrozenBody(body);
+    }
+
+    //Printable ASCII without quotes or backslashes can be copied byte for byte
+    private static boolean isPlain(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7e || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] jsonString(String value) {
+        try {
+            return Responses.MAPPER.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new IllegalStateException("Template marker not found");
+    }
+}
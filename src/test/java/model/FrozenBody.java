@@ -0,0 +1,53 @@
+package model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * A request body serialized once and sent as is on every call. Later changes to the model
+ * it came from are not seen, which is the point: the bytes never change after freezing.
+ */
+public final class FrozenBody {
+    private final byte[] bytes;
+    private volatile ByteBuffer direct;
+
+    FrozenBody(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public static FrozenBody of(Object model) {
+        try {
+            return new FrozenBody(Responses.MAPPER.writeValueAsBytes(model));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Cannot serialize " + model.getClass().getSimpleName(), e);
+        }
+    }
+
+    //Shared with every caller and handed straight to REST Assured; never modify it
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    //Read-only view of an off-heap copy, made on first use, for clients that write ByteBuffers
+    public ByteBuffer buffer() {
+        ByteBuffer buffer = direct;
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).flip();
+            direct = buffer;
+        }
+        return buffer.asReadOnlyBuffer();
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import config.TestProperties;
+import model.contact.ContactResponse;
+import model.error.ErrorResponse;
+import model.user.LoginResponse;
+import model.user.UserResponse;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Structural contracts for the response models, kept in src/test/resources/schemas.
+ * Each schema is loaded and compiled once per JVM and then validates the JsonNode that Responses
+ * binds from, so checking a body costs no second parse.
+ * -Dthinking.schema.sampleRate (0 to 1, default 1) validates only that share of bodies, e.g. 0.01 under load.
+ */
+public final class ResponseSchemas {
+    private static final JsonSchemaFactory FACTORY = JsonSchemaFactory.byDefault();
+    private static final String ROOT = "resource:/schemas/";
+    private static final Map<Class<?>, String> SCHEMAS = Map.of(
+            UserResponse.class, "user-response.json",
+            LoginResponse.class, "login-response.json",
+            ContactResponse.class, "contact-response.json",
+            ErrorResponse.class, "error-response.json");
+    private static final Map<Class<?>, String> LIST_SCHEMAS = Map.of(
+            ContactResponse.class, "contact-list.json");
+    private static final ConcurrentMap<String, JsonSchema> COMPILED = new ConcurrentHashMap<>();
+    private static final double SAMPLE_RATE = TestProperties.getDouble("thinking.schema.sampleRate", 1);
+
+    private ResponseSchemas() {
+    }
+
+    //Whether the next body of this type is to be validated: it has a schema and falls within the sample
+    public static boolean sample(Class<?> type) {
+        return SCHEMAS.containsKey(type) && sampled();
+    }
+
+    public static boolean sampleList(Class<?> elementType) {
+        return LIST_SCHEMAS.containsKey(elementType) && sampled();
+    }
+
+    //Throws AssertionError when body does not match the schema of type
+    public static void validate(JsonNode body, Class<?> type) {
+        validate(body, SCHEMAS.get(type), type.getSimpleName());
+    }
+
+    public static void validateList(JsonNode body, Class<?> elementType) {
+        validate(body, LIST_SCHEMAS.get(elementType), "list of " + elementType.getSimpleName());
+    }
+
+    private static void validate(JsonNode body, String schema, String description) {
+        if (schema == null) {
+            throw new IllegalArgumentException("No schema for " + description);
+        }
+        ProcessingReport report;
+        try {
+            report = compiled(schema).validate(body);
+        } catch (ProcessingException e) {
+            throw new IllegalStateException("Cannot validate against " + schema, e);
+        }
+        if (!report.isSuccess()) {
+            StringBuilder message = new StringBuilder("Response is not a valid ").append(description).append(':');
+            for (ProcessingMessage processingMessage : report) {
+                message.append("\n  ").append(processingMessage.getMessage());
+            }
+            throw new AssertionError(message.toString());
+        }
+    }
+
+    private static JsonSchema compiled(String schema) {
+        return COMPILED.computeIfAbsent(schema, name -> {
+            try {
+                return FACTORY.getJsonSchema(ROOT + name);
+            } catch (ProcessingException e) {
+                throw new IllegalStateException("Cannot load schema " + name, e);
+            }
+        });
+    }
+
+    private static boolean sampled() {
+        return SAMPLE_RATE >= 1 || SAMPLE_RATE > 0 && ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE;
+    }
+}
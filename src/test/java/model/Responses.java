@@ -0,0 +1,67 @@
+package model;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * Binds response bodies to the model classes in a single pass.
+ * The ObjectMapper and one ObjectReader per target type are built once and shared by all threads.
+ * Bodies sampled for schema validation are parsed into a tree once, checked by ResponseSchemas
+ * and bound from that same tree.
+ */
+public final class Responses {
+    public static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, ObjectReader> LIST_READERS = new ConcurrentHashMap<>();
+
+    private Responses() {
+    }
+
+    public static <T> T as(Response response, Class<T> type) {
+        return read(response.asByteArray(), type);
+    }
+
+    public static <T> List<T> asList(Response response, Class<T> elementType) {
+        return readList(response.asByteArray(), elementType);
+    }
+
+    public static <T> List<T> readList(byte[] body, Class<T> elementType) {
+        try {
+            ObjectReader reader = LIST_READERS.computeIfAbsent(elementType, type ->
+                    MAPPER.readerFor(MAPPER.getTypeFactory().constructCollectionType(List.class, type)));
+            if (!ResponseSchemas.sampleList(elementType)) {
+                return reader.readValue(body);
+            }
+            JsonNode tree = MAPPER.readTree(body);
+            ResponseSchemas.validateList(tree, elementType);
+            return reader.readValue(tree);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Response is not a list of " + elementType.getSimpleName(), e);
+        }
+    }
+
+    public static <T> T read(byte[] body, Class<T> type) {
+        try {
+            ObjectReader reader = READERS.computeIfAbsent(type, MAPPER::readerFor);
+            if (!ResponseSchemas.sample(type)) {
+                return reader.readValue(body);
+            }
+            JsonNode tree = MAPPER.readTree(body);
+            ResponseSchemas.validate(tree, type);
+            return reader.readValue(tree);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Response is not a " + type.getSimpleName(), e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package model.contact;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
+import model.FrozenBody;
 
 @Getter
 @Setter
@@ -20,4 +21,9 @@ public class ContactRequest {
 	private String stateProvince;
 	private String postalCode;
 	private String country;
+
+	//Serialized once; later setter calls do not change the frozen body
+	public FrozenBody freeze() {
+		return FrozenBody.of(this);
+	}
 }
@@ -0,0 +1,28 @@
+package model.contact;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ContactResponse {
+	@JsonProperty("_id")
+	private String id;
+	private String firstName;
+	private String lastName;
+	private String birthdate;
+	private String email;
+	private String phone;
+	private String street1;
+	private String street2;
+	private String city;
+	private String stateProvince;
+	private String postalCode;
+	private String country;
+	private String owner;
+	@JsonProperty("__v")
+	private Integer version;
+}
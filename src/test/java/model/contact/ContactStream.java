@@ -0,0 +1,113 @@
+package model.contact;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import model.Responses;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/*
+ * Walks a contact list body one element at a time with a JsonParser, so memory stays flat
+ * however many contacts the account holds. Accepts the bare array returned by GET contacts
+ * as well as an object wrapping it in a "contacts" field.
+ */
+public final class ContactStream {
+    private static final ObjectReader READER = Responses.MAPPER.readerFor(ContactResponse.class);
+
+    private ContactStream() {
+    }
+
+    //Binds contacts in order until the visitor returns false; returns how many were visited
+    public static long forEach(InputStream body, Predicate<ContactResponse> visitor) {
+        long visited = 0;
+        try (JsonParser parser = Responses.MAPPER.getFactory().createParser(body)) {
+            if (!seekArray(parser)) {
+                return 0;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                visited++;
+                if (!visitor.test(READER.readValue(parser))) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Response is not a contact list", e);
+        }
+        return visited;
+    }
+
+    public static Optional<ContactResponse> first(InputStream body) {
+        AtomicReference<ContactResponse> first = new AtomicReference<>();
+        forEach(body, contact -> {
+            first.set(contact);
+            return false;
+        });
+        return Optional.ofNullable(first.get());
+    }
+
+    public static long count(InputStream body, Predicate<ContactResponse> predicate) {
+        AtomicLong matches = new AtomicLong();
+        forEach(body, contact -> {
+            if (predicate.test(contact)) {
+                matches.incrementAndGet();
+            }
+            return true;
+        });
+        return matches.get();
+    }
+
+    //Counts elements whose top-level string field equals value without binding any of them
+    public static long countWhere(InputStream body, String field, String value) {
+        long matches = 0;
+        try (JsonParser parser = Responses.MAPPER.getFactory().createParser(body)) {
+            if (!seekArray(parser)) {
+                return 0;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                boolean matched = false;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    boolean wanted = field.equals(parser.getCurrentName());
+                    JsonToken token = parser.nextToken();
+                    if (token.isStructStart()) {
+                        parser.skipChildren();
+                    } else if (wanted && token == JsonToken.VALUE_STRING) {
+                        matched = value.equals(parser.getText());
+                    }
+                }
+                if (matched) {
+                    matches++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Response is not a contact list", e);
+        }
+        return matches;
+    }
+
+    //Leaves the parser on the START_ARRAY of the list, or returns false when there is none
+    private static boolean seekArray(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            return true;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            token = parser.nextToken();
+            if ("contacts".equals(name) && token == JsonToken.START_ARRAY) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+}
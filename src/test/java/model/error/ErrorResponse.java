@@ -0,0 +1,14 @@
+package model.error;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+//"message" comes with validation failures, "error" with authentication failures
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ErrorResponse {
+	private String message;
+	private String error;
+}
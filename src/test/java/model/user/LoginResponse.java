@@ -0,0 +1,14 @@
+package model.user;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+//Body of POST users and POST users/login
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class LoginResponse {
+	private UserResponse user;
+	private String token;
+}
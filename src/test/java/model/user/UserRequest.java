@@ -3,6 +3,7 @@ package model.user;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
+import model.FrozenBody;
 
 @Getter
 @Setter
@@ -12,4 +13,9 @@ public class UserRequest {
 	private String lastName;
 	private String email;
 	private String password;
+
+	//Serialized once; later setter calls do not change the frozen body
+	public FrozenBody freeze() {
+		return FrozenBody.of(this);
+	}
 }
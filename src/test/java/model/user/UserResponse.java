@@ -0,0 +1,19 @@
+package model.user;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UserResponse {
+	@JsonProperty("_id")
+	private String id;
+	private String firstName;
+	private String lastName;
+	private String email;
+	@JsonProperty("__v")
+	private Integer version;
+}
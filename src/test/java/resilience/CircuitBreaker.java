@@ -0,0 +1,68 @@
+package resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Opens after failureThreshold consecutive failures (5xx or no response) and then rejects calls
+ * for openMillis. The first call after that is let through as a probe: success closes the
+ * circuit, failure opens it for another period. Other calls are rejected while the probe runs.
+ */
+public class CircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    }
+
+    //Throws CircuitOpenException instead of letting the call reach a backend that is down
+    public synchronized void acquire(String call) {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            return;
+        }
+        if (state != State.CLOSED) {
+            rejected.increment();
+            throw new CircuitOpenException(call + " rejected, the circuit opened after "
+                    + failureThreshold + " consecutive failures");
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            trips.increment();
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    //How often the circuit opened
+    public long trips() {
+        return trips.sum();
+    }
+}
@@ -0,0 +1,10 @@
+package resilience;
+
+//Thrown instead of sending a request while the circuit breaker is open
+public class CircuitOpenException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,154 @@
+package resilience;
+
+import client.RetryPolicy;
+import config.TestProperties;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Puts every attempt of a request through the circuit breaker, then the rate limiter, and retries
+ * GET, PUT and DELETE on 429, 5xx or a lost connection with jittered backoff (RetryPolicy.idempotent).
+ * NetworkCostFilter and AttemptLatencyFilter sit inside it and count and time every attempt, which
+ * InnerChain sends again through them;
+ * everything outside, logging, end-to-end latency, Allure and the response cache, sees only the final answer.
+ * -Dthinking.resilience=true|false, -Dthinking.retry.max, -Dthinking.retry.backoffMs,
+ * -Dthinking.rateLimit.perSecond (0 = unlimited), -Dthinking.rateLimit.burst,
+ * -Dthinking.breaker.failures, -Dthinking.breaker.openMs
+ */
+public class ResilienceFilter implements OrderedFilter {
+    private static final Logger logger = LogManager.getLogger(ResilienceFilter.class);
+    private static final ResilienceFilter SHARED = fromProperties();
+
+    private final RetryPolicy retryPolicy;
+    private final TokenBucket rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    //rateLimiter may be null for no limit
+    public ResilienceFilter(RetryPolicy retryPolicy, TokenBucket rateLimiter, CircuitBreaker circuitBreaker) {
+        this.retryPolicy = retryPolicy;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public static ResilienceFilter shared() {
+        return SHARED;
+    }
+
+    public static boolean enabledFromProperty() {
+        return TestProperties.getBoolean("thinking.resilience", true);
+    }
+
+    private static ResilienceFilter fromProperties() {
+        double perSecond = TestProperties.getDouble("thinking.rateLimit.perSecond", 0);
+        TokenBucket rateLimiter = perSecond <= 0 ? null
+                : new TokenBucket(perSecond, TestProperties.getInt("thinking.rateLimit.burst", (int) Math.ceil(perSecond)));
+        return new ResilienceFilter(
+                RetryPolicy.idempotent(TestProperties.getInt("thinking.retry.max", 3), TestProperties.getLong("thinking.retry.backoffMs", 100)),
+                rateLimiter,
+                new CircuitBreaker(TestProperties.getInt("thinking.breaker.failures", 10), TestProperties.getLong("thinking.breaker.openMs", 5000)));
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 3;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec, FilterContext ctx) {
+        String method = requestSpec.getMethod();
+        for (int attempt = 0; ; attempt++) {
+            circuitBreaker.acquire(method + " " + requestSpec.getURI());
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+            }
+            Response response = null;
+            Exception failure = null;
+            try {
+                response = attempt == 0 ? ctx.next(requestSpec, responseSpec) : InnerChain.resend(this, requestSpec, responseSpec, ctx);
+            } catch (Exception e) {
+                failure = e;
+            }
+            int status = response == null ? -1 : response.getStatusCode();
+            if (failure != null || status >= 500) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+
+            if (!retryPolicy.shouldRetry(method, attempt, status, failure)) {
+                if (attempt > 0 && RetryPolicy.isTransient(status, failure)) {
+                    exhausted.increment();
+                }
+                if (failure != null) {
+                    throw sneaky(failure);
+                }
+                return response;
+            }
+            retries.increment();
+            long backoff = retryPolicy.backoffMillis(attempt, response);
+            logger.debug(method + " " + requestSpec.getURI() + " answered " + status + ", retry " + (attempt + 1) + " in " + backoff + " ms");
+            discard(response);
+            sleep(backoff);
+        }
+    }
+
+    public long retries() {
+        return retries.sum();
+    }
+
+    //Requests that were retried and still failed
+    public long exhausted() {
+        return exhausted.sum();
+    }
+
+    public TokenBucket rateLimiter() {
+        return rateLimiter;
+    }
+
+    public CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void logStats() {
+        logger.info(String.format("Resilience retries=%d, gave up=%d, throttled=%d (%d ms waited), circuit %s, trips=%d, rejected=%d",
+                retries(), exhausted(),
+                rateLimiter == null ? 0 : rateLimiter.throttled(), rateLimiter == null ? 0 : rateLimiter.waitedMillis(),
+                circuitBreaker.state(), circuitBreaker.trips(), circuitBreaker.rejected()));
+    }
+
+    //A streamed body nobody reads would keep its pooled connection
+    private static void discard(Response response) {
+        if (response != null) {
+            try {
+                response.asInputStream().close();
+            } catch (IOException ignored) {
+                //the connection is dropped instead of reused
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", e);
+        }
+    }
+
+    //REST Assured is Groovy and throws checked IOExceptions undeclared; pass them on unchanged
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> E sneaky(Exception failure) throws E {
+        throw (E) failure;
+    }
+}
@@ -0,0 +1,57 @@
+package resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Client-side rate limit shared by every thread: permitsPerSecond on average with bursts of up to
+ * `burst` requests. A caller reserves its permit under the lock and sleeps outside it, so waiting
+ * threads queue in reservation order instead of spinning.
+ */
+public class TokenBucket {
+    private final double permitsPerNano;
+    private final double burst;
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder waitedNanos = new LongAdder();
+    private double available;
+    private long refilledAt = System.nanoTime();
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.available = this.burst;
+    }
+
+    public void acquire() {
+        long waitNanos = reserve();
+        if (waitNanos <= 0) {
+            return;
+        }
+        throttled.increment();
+        waitedNanos.add(waitNanos);
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the rate limiter", e);
+        }
+    }
+
+    //Requests that had to wait for a permit
+    public long throttled() {
+        return throttled.sum();
+    }
+
+    public long waitedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitedNanos.sum());
+    }
+
+    //Takes one permit, going into debt when none is left; the debt is the time to wait
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        available = Math.min(burst, available + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+        available -= 1;
+        return available >= 0 ? 0 : (long) (-available / permitsPerNano);
+    }
+}
@@ -0,0 +1,22 @@
+package runner;
+
+//Name of the test method the calling thread is running, set by ParallelRunner
+public final class CurrentTest {
+    private static final ThreadLocal<String> NAME = new ThreadLocal<>();
+
+    private CurrentTest() {
+    }
+
+    public static String name() {
+        String name = NAME.get();
+        return name == null ? "class" : name;
+    }
+
+    static void set(String name) {
+        NAME.set(name);
+    }
+
+    static void clear() {
+        NAME.remove();
+    }
+}
@@ -0,0 +1,85 @@
+package runner;
+
+import config.TestProperties;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Runs the test methods of a class on a fixed pool of workers.
+ * -Dthinking.parallel=off (default) keeps the serial order, "auto" uses one worker per core
+ * and a number sets the worker count explicitly.
+ */
+public class ParallelRunner extends BlockJUnit4ClassRunner {
+    private static final Logger logger = LogManager.getLogger(ParallelRunner.class);
+
+    public ParallelRunner(Class<?> testClass) throws InitializationError {
+        super(testClass);
+        int workers = workerCount();
+        if (workers > 1) {
+            logger.info("Running " + testClass.getSimpleName() + " on " + workers + " workers");
+            setScheduler(new PoolScheduler(testClass.getSimpleName(), workers));
+        }
+    }
+
+    @Override
+    protected void runChild(FrameworkMethod method, RunNotifier notifier) {
+        CurrentTest.set(describeChild(method).getDisplayName());
+        try {
+            super.runChild(method, notifier);
+        } finally {
+            CurrentTest.clear();
+        }
+    }
+
+    public static int workerCount() {
+        String parallel = TestProperties.getString("thinking.parallel", "off");
+        if ("off".equalsIgnoreCase(parallel)) {
+            return 1;
+        }
+        if ("auto".equalsIgnoreCase(parallel)) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max(1, Integer.parseInt(parallel));
+    }
+
+    private static class PoolScheduler implements RunnerScheduler {
+        private final ExecutorService executor;
+
+        PoolScheduler(String name, int workers) {
+            AtomicInteger sequence = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, name + "-worker-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            executor = Executors.newFixedThreadPool(workers, threadFactory);
+        }
+
+        @Override
+        public void schedule(Runnable childStatement) {
+            executor.execute(childStatement);
+        }
+
+        @Override
+        public void finished() {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.HOURS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+            }
+        }
+    }
+}
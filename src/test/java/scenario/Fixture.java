@@ -0,0 +1,64 @@
+package scenario;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+ * A named piece of setup data, such as a token or a contact id, and the fixtures it is computed from.
+ * Fixtures with the same key are the same data: FixtureScheduler computes a key once and hands the
+ * value to every scenario that needs it, so keys must name everything the value depends on, e.g. the account.
+ */
+public final class Fixture<T> {
+    private final String key;
+    private final List<Fixture<?>> needs;
+    private final Function<Resolved, T> step;
+    private final boolean shared;
+
+    private Fixture(String key, List<Fixture<?>> needs, Function<Resolved, T> step, boolean shared) {
+        this.key = key;
+        this.needs = needs;
+        this.step = step;
+        this.shared = shared;
+    }
+
+    public static <T> Fixture<T> of(String key, Supplier<T> step) {
+        return new Fixture<>(key, List.of(), resolved -> step.get(), true);
+    }
+
+    public static <A, T> Fixture<T> of(String key, Fixture<A> a, Function<A, T> step) {
+        return new Fixture<>(key, List.of(a), resolved -> step.apply(resolved.get(a)), true);
+    }
+
+    //a and b do not depend on each other, so the scheduler resolves them concurrently
+    public static <A, B, T> Fixture<T> of(String key, Fixture<A> a, Fixture<B> b, BiFunction<A, B, T> step) {
+        return new Fixture<>(key, List.of(a, b), resolved -> step.apply(resolved.get(a), resolved.get(b)), true);
+    }
+
+    //Computed again for every scenario; for values another cache already owns, like TokenProvider tokens
+    public Fixture<T> unshared() {
+        return new Fixture<>(key, needs, step, false);
+    }
+
+    public String key() {
+        return key;
+    }
+
+    List<Fixture<?>> needs() {
+        return needs;
+    }
+
+    boolean isShared() {
+        return shared;
+    }
+
+    T compute(Resolved inputs) {
+        return step.apply(inputs);
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
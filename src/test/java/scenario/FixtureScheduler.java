@@ -0,0 +1,150 @@
+package scenario;
+
+import metrics.NetworkCost;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Resolves fixtures and everything they need. A shared fixture is computed once per key and its
+ * value handed to every later scenario, including ones asking while it is still being computed.
+ * Steps whose inputs are ready run concurrently on the scheduler's own threads. Their calls are
+ * charged as setup to the NetworkCost of the test that triggered them; the time that test waits is not.
+ * A failed step is not remembered; the next scenario that needs it runs it again.
+ */
+public final class FixtureScheduler {
+    private static final Logger logger = LogManager.getLogger(FixtureScheduler.class);
+    private static final FixtureScheduler SHARED = new FixtureScheduler();
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> memo = new ConcurrentHashMap<>();
+    private final LongAdder computed = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final Executor executor;
+
+    private FixtureScheduler() {
+        AtomicInteger sequence = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fixture-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static FixtureScheduler shared() {
+        return SHARED;
+    }
+
+    public <T> T get(Fixture<T> fixture) {
+        return resolve(List.of(fixture)).get(fixture);
+    }
+
+    //Starts every fixture before waiting on any of them
+    public Resolved resolve(List<Fixture<?>> fixtures) {
+        NetworkCost cost = NetworkCost.current();
+        Map<String, CompletableFuture<Object>> unshared = new HashMap<>();
+        List<CompletableFuture<Object>> futures = new ArrayList<>(fixtures.size());
+        for (Fixture<?> fixture : fixtures) {
+            futures.add(schedule(fixture, unshared, cost));
+        }
+        Map<String, Object> values = new HashMap<>();
+        NetworkCost.waiting(() -> {
+            for (int i = 0; i < fixtures.size(); i++) {
+                values.put(fixtures.get(i).key(), await(futures.get(i)));
+            }
+            return values;
+        });
+        return new Resolved(values);
+    }
+
+    //The data behind the fixture changed or is gone; the next scenario computes it again
+    public void forget(Fixture<?> fixture) {
+        memo.remove(fixture.key());
+    }
+
+    public long computed() {
+        return computed.sum();
+    }
+
+    public long reused() {
+        return reused.sum();
+    }
+
+    public void logStats() {
+        logger.info("Fixtures: " + computed.sum() + " steps run, " + reused.sum() + " reused");
+    }
+
+    public void clear() {
+        memo.clear();
+    }
+
+    //Unshared fixtures are computed once per resolve, however many of its fixtures need them
+    private CompletableFuture<Object> schedule(Fixture<?> fixture, Map<String, CompletableFuture<Object>> unshared,
+                                               NetworkCost cost) {
+        if (!fixture.isShared()) {
+            CompletableFuture<Object> existing = unshared.get(fixture.key());
+            if (existing == null) {
+                existing = start(fixture, unshared, cost);
+                unshared.put(fixture.key(), existing);
+            }
+            return existing;
+        }
+        CompletableFuture<Object> value = new CompletableFuture<>();
+        CompletableFuture<Object> existing = memo.putIfAbsent(fixture.key(), value);
+        if (existing != null) {
+            reused.increment();
+            return existing;
+        }
+        start(fixture, unshared, cost).whenComplete((result, failure) -> {
+            if (failure != null) {
+                memo.remove(fixture.key(), value);
+                value.completeExceptionally(failure);
+            } else {
+                value.complete(result);
+            }
+        });
+        return value;
+    }
+
+    private CompletableFuture<Object> start(Fixture<?> fixture, Map<String, CompletableFuture<Object>> unshared,
+                                            NetworkCost cost) {
+        computed.increment();
+        List<Fixture<?>> needs = fixture.needs();
+        List<CompletableFuture<Object>> inputs = new ArrayList<>(needs.size());
+        for (Fixture<?> need : needs) {
+            inputs.add(schedule(need, unshared, cost));
+        }
+        return CompletableFuture.allOf(inputs.toArray(new CompletableFuture<?>[0])).thenApplyAsync(ready -> {
+            Map<String, Object> values = new HashMap<>();
+            for (int i = 0; i < needs.size(); i++) {
+                values.put(needs.get(i).key(), inputs.get(i).join());
+            }
+            return NetworkCost.chargedAsSetup(cost, () -> fixture.compute(new Resolved(values)));
+        }, executor);
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw sneaky(e.getCause());
+        }
+    }
+
+    //Rethrows an AssertionError of a step as is, so it fails the test like a direct call would
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> E sneaky(Throwable failure) throws E {
+        throw (E) failure;
+    }
+}
@@ -0,0 +1,20 @@
+package scenario;
+
+import java.util.Map;
+
+//Values of the fixtures a scenario or a step declared, by fixture key
+public final class Resolved {
+    private final Map<String, Object> values;
+
+    Resolved(Map<String, Object> values) {
+        this.values = values;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Fixture<T> fixture) {
+        if (!values.containsKey(fixture.key())) {
+            throw new IllegalArgumentException(fixture + " was not declared");
+        }
+        return (T) values.get(fixture.key());
+    }
+}
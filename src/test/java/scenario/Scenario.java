@@ -0,0 +1,44 @@
+package scenario;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+ * A test body and the fixtures it needs, e.g.
+ *   Scenario.given(token, contactId).run(data -> client.updateContact(data.get(token), data.get(contactId), ...));
+ * The fixtures are resolved through FixtureScheduler before the body runs on the calling thread.
+ * A fixture the body changes or deletes is declared with consuming(...), so no later scenario reuses it.
+ */
+public final class Scenario {
+    private final FixtureScheduler scheduler;
+    private final List<Fixture<?>> needs;
+    private final List<Fixture<?>> consumed = new ArrayList<>();
+
+    private Scenario(FixtureScheduler scheduler, List<Fixture<?>> needs) {
+        this.scheduler = scheduler;
+        this.needs = needs;
+    }
+
+    public static Scenario given(Fixture<?>... fixtures) {
+        return new Scenario(FixtureScheduler.shared(), new ArrayList<>(Arrays.asList(fixtures)));
+    }
+
+    public Scenario consuming(Fixture<?> fixture) {
+        if (!needs.contains(fixture)) {
+            needs.add(fixture);
+        }
+        consumed.add(fixture);
+        return this;
+    }
+
+    public void run(Consumer<Resolved> body) {
+        Resolved resolved = scheduler.resolve(needs);
+        try {
+            body.accept(resolved);
+        } finally {
+            consumed.forEach(scheduler::forget);
+        }
+    }
+}